@@ -0,0 +1,45 @@
+#!/bin/sh
+# 分割したOutboxテーブル(core.message0 ... core.message{N-1})ごとのコネクタ設定を生成する.
+# PostgresConnectorは1コネクタ1タスク(レプリケーションスロット1つ)で読み取るため, tasks.maxではなくコネクタを分けて並列に取り込む.
+# 同じ宛先キーのメッセージは同じテーブルに書き込まれるため, キー単位の順序はコネクタごとに保たれる.
+# 分割前のcore.messageはservice-organization-connector-config.jsonで引き続き取り込む.
+# パブリケーションは日次パーティションを含めて親テーブル単位で取り込むため, マイグレーションで作成する(R__create_outbox_partition_tables.sql).
+# ハートビートにより, 取り込み対象の変更がない間も確認済みの位置を進め, 保持期間を過ぎたパーティションを削除できるようにする.
+#
+# usage: ./generate-connector-configs.sh [テーブル数(core.outbox.partitioning.outbox.tablesと同じ値, default: 4)]
+
+TABLES=${1:-4}
+DIR=$(cd "$(dirname "$0")" && pwd)
+
+i=0
+while [ "$i" -lt "$TABLES" ]; do
+  cat > "$DIR/service-organization-connector-$i-config.json" <<JSON
+{
+  "name": "service-organization-connector-$i",
+  "config": {
+    "connector.class": "io.debezium.connector.postgresql.PostgresConnector",
+    "tasks.max": "1",
+    "database.hostname": "organization-postgres",
+    "database.port": "5432",
+    "database.user": "postgres",
+    "database.password": "postgres",
+    "database.dbname": "organization",
+    "database.server.name": "organization-service-db-$i",
+    "table.include.list": "core.message$i",
+    "topic.prefix": "organization_service_$i",
+    "plugin.name": "pgoutput",
+    "slot.name": "debezium_organization_service_slot_$i",
+    "publication.name": "debezium_organization_service_publication_$i",
+    "publication.autocreate.mode": "disabled",
+    "heartbeat.interval.ms": "10000",
+    "key.converter": "org.apache.kafka.connect.json.JsonConverter",
+    "value.converter": "org.apache.kafka.connect.json.JsonConverter",
+    "key.converter.schemas.enable": "true",
+    "value.converter.schemas.enable": "true",
+    "transforms": "messaging",
+    "transforms.messaging.type": "org.cresplanex.core.cdc.debezium.TransactionalMessaging"
+  }
+}
+JSON
+  i=$((i + 1))
+done
@@ -0,0 +1,147 @@
+package org.cresplanex.api.state.organizationservice.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.datasource.ReadYourWritesTracker;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 同時に発生した組織IDによる取得をまとめ, 1回のクエリ(organization_id = ANY(?))で読み込む.
+ * 最初に要求したスレッドが待ち時間(window)だけ待ってからバッチを実行し, 結果を待機中の呼び出しに返す.
+ * 待ち時間内にmaxBatchSize件に達した場合は, 達したスレッドがその場で実行する.
+ * バッチサイズと待ち時間はヒストグラムとして公開する.
+ */
+@Slf4j
+@Component
+public class OrganizationBatchLoader {
+
+    private final OrganizationRepository organizationRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer waitTimer;
+
+    private final Object lock = new Object();
+    private Batch current;
+
+    public OrganizationBatchLoader(
+            OrganizationRepository organizationRepository,
+            ReadYourWritesTracker readYourWritesTracker,
+            MeterRegistry meterRegistry,
+            @Value("${app.loader.organization.enabled:true}") boolean enabled,
+            @Value("${app.loader.organization.window:2ms}") Duration window,
+            @Value("${app.loader.organization.max-batch-size:100}") int maxBatchSize
+    ) {
+        this.organizationRepository = organizationRepository;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizeSummary = DistributionSummary.builder("organization.loader.batch.size")
+                .description("Number of organization ids loaded by one batched query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("organization.loader.wait")
+                .description("Time from requesting an organization to receiving the batched result")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 組織を取得する. 存在しない場合はempty.
+     */
+    public Optional<OrganizationEntity> load(String organizationId) {
+        if (!enabled) {
+            return readYourWritesTracker.readAfterWrites(List.of(organizationId),
+                    () -> organizationRepository.findById(organizationId));
+        }
+
+        long start = System.nanoTime();
+        Batch batch;
+        Batch ready = null;
+        boolean leader = false;
+        CompletableFuture<Optional<OrganizationEntity>> future;
+        synchronized (lock) {
+            if (current == null) {
+                current = new Batch();
+                leader = true;
+            }
+            batch = current;
+            future = batch.futures.computeIfAbsent(organizationId, k -> new CompletableFuture<>());
+            if (batch.futures.size() >= maxBatchSize) {
+                current = null;
+                ready = batch;
+            }
+        }
+
+        if (ready == null && leader) {
+            awaitWindow(start);
+            synchronized (lock) {
+                if (current == batch) {
+                    current = null;
+                    ready = batch;
+                }
+            }
+        }
+        if (ready != null) {
+            execute(ready);
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void awaitWindow(long start) {
+        long deadline = start + windowNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void execute(Batch batch) {
+        String[] organizationIds = batch.futures.keySet().toArray(new String[0]);
+        batchSizeSummary.record(organizationIds.length);
+        try {
+            Map<String, OrganizationEntity> found = new LinkedHashMap<>();
+            // 直近に変更された組織を含む場合は, レプリカの古い値をキャッシュしないようプライマリから読み込む
+            List<OrganizationEntity> organizations = readYourWritesTracker.readAfterWrites(List.of(organizationIds),
+                    () -> organizationRepository.findAllByOrganizationIdArray(organizationIds));
+            organizations.forEach(organization -> found.put(organization.getOrganizationId(), organization));
+            batch.futures.forEach((organizationId, future) ->
+                    future.complete(Optional.ofNullable(found.get(organizationId))));
+        } catch (RuntimeException e) {
+            log.warn("Failed to load organizations in batch: size={}", organizationIds.length, e);
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static final class Batch {
+        private final Map<String, CompletableFuture<Optional<OrganizationEntity>>> futures = new LinkedHashMap<>();
+    }
+}
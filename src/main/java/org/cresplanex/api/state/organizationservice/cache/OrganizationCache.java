@@ -0,0 +1,95 @@
+package org.cresplanex.api.state.organizationservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 組織IDをキーとした組織のキャッシュ.
+ * 組織(findById)を保持する. ドメインイベントはEntityのversionを持たないため, 破棄は組織ID単位で行う.
+ * 所属ユーザーは件数が大きくなりうるため保持せず, 都度ページ単位で取得する.
+ * キャッシュしたEntityは共有されるため, 呼び出し元には複製を返す.
+ * ヒット/ミス/エビクションの統計はMicrometerのcache.*メトリクスとして公開する.
+ */
+@Slf4j
+@Component
+public class OrganizationCache {
+
+    // 自インスタンスでのコミットによる通知の場合のイベント種別
+    public static final String LOCAL_COMMIT_EVENT_TYPE = "local-commit";
+
+    private final Cache<String, OrganizationEntity> organizations;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public OrganizationCache(
+            MeterRegistry meterRegistry,
+            ApplicationEventPublisher applicationEventPublisher,
+            @Value("${app.cache.organization.ttl:5m}") Duration ttl,
+            @Value("${app.cache.organization.maximum-size:10000}") long maximumSize
+    ) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.organizations = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, organizations, "organization");
+    }
+
+    public OrganizationEntity get(String organizationId, Function<String, OrganizationEntity> loader) {
+        return organizations.get(organizationId, loader).clone();
+    }
+
+    public void evict(String organizationId) {
+        organizations.invalidate(organizationId);
+    }
+
+    /**
+     * 現在のトランザクションのコミット後にエントリを破棄し, OrganizationInvalidatedEventで他のローカルキャッシュにも通知する.
+     * コミット前に破棄すると, 他のリクエストが変更前の値を再度キャッシュする可能性があるため.
+     */
+    public void evictAfterCommit(Collection<String> organizationIds) {
+        if (organizationIds.isEmpty()) {
+            return;
+        }
+        List<String> targets = List.copyOf(organizationIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictAndNotify(targets);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictAndNotify(targets);
+            }
+        });
+    }
+
+    public void evictAfterCommit(String organizationId) {
+        evictAfterCommit(List.of(organizationId));
+    }
+
+    private void evictAndNotify(List<String> organizationIds) {
+        organizationIds.forEach(organizationId -> {
+            evict(organizationId);
+            applicationEventPublisher.publishEvent(new OrganizationInvalidatedEvent(organizationId, LOCAL_COMMIT_EVENT_TYPE));
+        });
+    }
+
+    public void evictAll() {
+        organizations.invalidateAll();
+    }
+}
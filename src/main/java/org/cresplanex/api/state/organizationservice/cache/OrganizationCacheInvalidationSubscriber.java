@@ -0,0 +1,128 @@
+package org.cresplanex.api.state.organizationservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.common.event.EventAggregateType;
+import org.cresplanex.api.state.organizationservice.messaging.SwimlaneQueueDepthTracker;
+import org.cresplanex.api.state.organizationservice.messaging.SwimlaneTrackingMessageConsumerImplementation;
+import org.cresplanex.core.events.common.EventMessageHeaders;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.common.kafka.consumer.CoreKafkaMessageConsumer;
+import org.cresplanex.core.messaging.consumer.MessageConsumerImplementation;
+import org.cresplanex.core.messaging.consumer.MessageSubscription;
+import org.cresplanex.core.messaging.consumer.kafka.MessageConsumerKafkaImplementation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 組織集約のドメインイベントを購読し, レプリカごとのローカルキャッシュを破棄する.
+ * 全レプリカがすべてのイベントを受信できるよう, インスタンスごとのサブスクライバーIDで購読する.
+ * サブスクライバーIDは再起動で変わらない値(StatefulSetのPod名など)とし, 再起動のたびにコンシューマーグループが増えないようにする.
+ * 再起動で変わる値(ホスト名, 乱数)で補わず, 有効な場合に未設定であれば起動を失敗させる.
+ * 破棄は冪等なため, 重複検知を行わずにKafkaから直接購読し, 受信済みメッセージ(received_messages)を記録しない.
+ * 起動前に発行されたイベントは, 起動時点でキャッシュが空のため破棄せずに読み飛ばす.
+ * イベント発行から破棄までの遅延はorganization.cache.invalidation.lagとして記録する.
+ */
+@Slf4j
+@Component
+public class OrganizationCacheInvalidationSubscriber {
+
+    private static final String SUBSCRIBER_ID_PREFIX = "organization-cache-invalidation-";
+
+    private final MessageConsumerImplementation messageConsumer;
+    private final OrganizationCache organizationCache;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final String subscriberId;
+    private final boolean enabled;
+    private final Instant startedAt = Instant.now();
+    private final Timer lagTimer;
+    private final Counter invalidationCounter;
+
+    private MessageSubscription subscription;
+
+    public OrganizationCacheInvalidationSubscriber(
+            CoreKafkaMessageConsumer coreKafkaMessageConsumer,
+            SwimlaneQueueDepthTracker swimlaneQueueDepthTracker,
+            OrganizationCache organizationCache,
+            ApplicationEventPublisher applicationEventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.invalidation.instance-id:}") String instanceId,
+            @Value("${app.cache.invalidation.enabled:true}") boolean enabled
+    ) {
+        if (enabled && (instanceId == null || instanceId.isBlank())) {
+            throw new IllegalStateException(
+                    "app.cache.invalidation.instance-id (CACHE_INVALIDATION_INSTANCE_ID) must be set to a value that is unique per replica and stable across restarts");
+        }
+        // 重複検知などのデコレータを通さずに購読する(スイムレーンの未処理数は他の購読と同様に数える)
+        this.messageConsumer = new SwimlaneTrackingMessageConsumerImplementation(
+                new MessageConsumerKafkaImplementation(coreKafkaMessageConsumer),
+                swimlaneQueueDepthTracker);
+        this.organizationCache = organizationCache;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.subscriberId = SUBSCRIBER_ID_PREFIX + instanceId;
+        this.enabled = enabled;
+        this.lagTimer = Timer.builder("organization.cache.invalidation.lag")
+                .description("Delay between publishing an organization event and evicting local caches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("organization.cache.invalidation")
+                .description("Number of organization events that evicted local caches")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!enabled) {
+            return;
+        }
+        subscription = messageConsumer.subscribe(subscriberId, Set.of(EventAggregateType.ORGANIZATION), this::handle);
+        log.info("Subscribed to organization events for cache invalidation: {}", subscriberId);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+    }
+
+    private void handle(Message message) {
+        Optional<String> organizationId = message.getHeader(EventMessageHeaders.AGGREGATE_ID);
+        if (organizationId.isEmpty()) {
+            return;
+        }
+        Optional<Instant> publishedAt = publishedAt(message);
+        if (publishedAt.isPresent() && publishedAt.get().isBefore(startedAt)) {
+            return;
+        }
+
+        organizationCache.evict(organizationId.get());
+        applicationEventPublisher.publishEvent(new OrganizationInvalidatedEvent(
+                organizationId.get(), message.getHeader(EventMessageHeaders.EVENT_TYPE).orElse(null)));
+        invalidationCounter.increment();
+        publishedAt.ifPresent(at -> lagTimer.record(Duration.between(at, Instant.now())));
+    }
+
+    private static Optional<Instant> publishedAt(Message message) {
+        return message.getHeader(Message.DATE).flatMap(date -> {
+            try {
+                return Optional.of(ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+            } catch (Exception e) {
+                log.debug("Unparseable message date: {}", date);
+                return Optional.empty();
+            }
+        });
+    }
+}
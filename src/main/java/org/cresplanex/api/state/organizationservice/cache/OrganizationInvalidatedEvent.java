@@ -0,0 +1,11 @@
+package org.cresplanex.api.state.organizationservice.cache;
+
+/**
+ * 組織集約のドメインイベントを受信し, 組織に関するローカルキャッシュを破棄すべきことを通知する.
+ * OrganizationCache以外のローカルキャッシュは, このイベントを購読して破棄/再読込を行う.
+ *
+ * @param organizationId 組織ID
+ * @param eventType 受信したドメインイベントの種別
+ */
+public record OrganizationInvalidatedEvent(String organizationId, String eventType) {
+}
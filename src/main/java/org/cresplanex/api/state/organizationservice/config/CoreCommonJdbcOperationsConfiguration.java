@@ -42,6 +42,9 @@ public class CoreCommonJdbcOperationsConfiguration {
 
     /**
      * Spring JDBCをExecutorに使用.
+     * 重複検知, Saga, Outboxのいずれもこれを利用する.
+     * Outboxへの書き込みをドメインの更新と同じトランザクションで行うため, 専用のDataSourceは持たせず,
+     * 受信メッセージの処理中はWorkloadRoutingDataSourceによりメッセージ処理用のプールが選択される.
      */
     @Bean
     public CoreJdbcStatementExecutor coreJdbcStatementExecutor(JdbcTemplate jdbcTemplate) {
@@ -1,7 +1,10 @@
 package org.cresplanex.api.state.organizationservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.organizationservice.messaging.HashingTopicPartitionToSwimlaneMapping;
+import org.cresplanex.api.state.organizationservice.messaging.MessagingConcurrency;
+import org.cresplanex.api.state.organizationservice.messaging.SwimlaneQueueDepthTracker;
 import org.cresplanex.core.common.kafka.consumer.CoreKafkaMessageConsumer;
-import org.cresplanex.core.common.kafka.consumer.swimlanemap.OriginalTopicPartitionToSwimlaneMapping;
 import org.cresplanex.core.common.kafka.consumer.swimlanemap.TopicPartitionToSwimlaneMapping;
 import org.cresplanex.core.common.kafka.lower.KafkaConsumerFactory;
 import org.cresplanex.core.common.kafka.lower.KafkaConsumerFactoryConfiguration;
@@ -9,6 +12,7 @@ import org.cresplanex.core.common.kafka.property.CoreKafkaConnectProperties;
 import org.cresplanex.core.common.kafka.property.CoreKafkaConnectPropertiesConfiguration;
 import org.cresplanex.core.common.kafka.property.CoreKafkaConsumerProperties;
 import org.cresplanex.core.common.kafka.property.CoreKafkaConsumerSpringPropertiesConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -21,8 +25,48 @@ import org.springframework.context.annotation.Import;
 })
 public class CoreKafkaMessageConsumerConfiguration {
 
-    // パーティションからスイムレーンへのデフォルトのマッピング
-    private final TopicPartitionToSwimlaneMapping partitionToSwimLaneMapping = new OriginalTopicPartitionToSwimlaneMapping();
+    /**
+     * 受信メッセージの同時処理数を, messagingプールに割り当てられるコネクション数に収める.
+     * パーティションあたりのスイムレーン数が0の場合は, CPUコア数を上限に収まる数とする.
+     * 指定された数が収まらない場合, または1スイムレーンでも収まらない場合は起動に失敗する.
+     */
+    @Bean
+    public MessagingConcurrency messagingConcurrency(
+            @Value("${app.messaging.swimlanes-per-partition:0}") int swimlanesPerPartition,
+            @Value("${app.messaging.max-assigned-partitions:2}") int maxAssignedPartitions,
+            @Value("${app.messaging.local-dispatch.pool-size:4}") int localDispatchPoolSize,
+            @Value("${app.messaging.local-dispatch.enabled:true}") boolean localDispatchEnabled,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.datasource.routing.enabled:false}") boolean routingEnabled,
+            @Value("${app.datasource.pools.messaging-share:0.4}") double messagingShare
+    ) {
+        int partitions = Math.max(maxAssignedPartitions, 1);
+        int localDispatchLanes = localDispatchEnabled ? Math.max(localDispatchPoolSize, 1) : 0;
+        // プールを分離しない場合は, 全体のコネクション数を上限とする
+        int budget = routingEnabled ? DataSourceRoutingConfiguration.share(maximumPoolSize, messagingShare) : maximumPoolSize;
+        int lanes = swimlanesPerPartition > 0
+                ? swimlanesPerPartition
+                : Math.min(Runtime.getRuntime().availableProcessors(), (budget - localDispatchLanes) / partitions);
+        MessagingConcurrency concurrency = new MessagingConcurrency(lanes, partitions, localDispatchLanes);
+        if (lanes < 1 || concurrency.connections() > budget) {
+            throw new IllegalStateException(("Messaging concurrency (%d swimlanes x %d partitions + %d local dispatch lanes) "
+                    + "does not fit the %d connections of the messaging pool; raise DB_MAX_POOL_SIZE or DB_MESSAGING_POOL_SHARE, "
+                    + "or lower MESSAGING_SWIMLANES_PER_PARTITION, MESSAGING_MAX_ASSIGNED_PARTITIONS or MESSAGING_LOCAL_DISPATCH_POOL_SIZE")
+                    .formatted(Math.max(lanes, 1), partitions, localDispatchLanes, budget));
+        }
+        return concurrency;
+    }
+
+    @Bean
+    public SwimlaneQueueDepthTracker swimlaneQueueDepthTracker(MeterRegistry meterRegistry, MessagingConcurrency messagingConcurrency) {
+        return new SwimlaneQueueDepthTracker(meterRegistry, messagingConcurrency.swimlanesPerPartition());
+    }
+
+    // パーティション内をメッセージのキーのハッシュで複数のスイムレーンに振り分ける
+    @Bean
+    public TopicPartitionToSwimlaneMapping partitionToSwimlaneMapping(SwimlaneQueueDepthTracker swimlaneQueueDepthTracker) {
+        return new HashingTopicPartitionToSwimlaneMapping(swimlaneQueueDepthTracker);
+    }
 
     /**
      * Kafkaメッセージを消費するCoreKafkaMessageConsumerビーンを作成
@@ -30,12 +74,14 @@ public class CoreKafkaMessageConsumerConfiguration {
      * @param props Kafkaの基本プロパティ
      * @param coreKafkaConsumerProperties Kafkaコンシューマの設定
      * @param kafkaConsumerFactory Kafkaコンシューマを生成するファクトリ
+     * @param partitionToSwimlaneMapping パーティションからスイムレーンへのマッピング
      * @return 設定済みのCoreKafkaMessageConsumerインスタンス
      */
     @Bean
     public CoreKafkaMessageConsumer messageConsumerKafka(CoreKafkaConnectProperties props,
             CoreKafkaConsumerProperties coreKafkaConsumerProperties,
-            KafkaConsumerFactory kafkaConsumerFactory) {
-        return new CoreKafkaMessageConsumer(props.getBootstrapServers(), coreKafkaConsumerProperties, kafkaConsumerFactory, partitionToSwimLaneMapping);
+            KafkaConsumerFactory kafkaConsumerFactory,
+            TopicPartitionToSwimlaneMapping partitionToSwimlaneMapping) {
+        return new CoreKafkaMessageConsumer(props.getBootstrapServers(), coreKafkaConsumerProperties, kafkaConsumerFactory, partitionToSwimlaneMapping);
     }
 }
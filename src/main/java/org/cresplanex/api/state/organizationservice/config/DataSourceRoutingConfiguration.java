@@ -0,0 +1,136 @@
+package org.cresplanex.api.state.organizationservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.organizationservice.datasource.ReplicaRoutingDataSource;
+import org.cresplanex.api.state.organizationservice.datasource.WorkloadRoutingDataSource;
+import org.cresplanex.api.state.organizationservice.enums.ReplicaSelection;
+import org.cresplanex.api.state.organizationservice.enums.Workload;
+import org.cresplanex.api.state.organizationservice.messaging.MessagingConcurrency;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ワークロードごとにコネクションプールを分離し, 読み取り専用トランザクションをレプリカに振り分ける.
+ * 有効な場合, アプリケーション全体のDataSourceをWorkloadRoutingDataSourceに置き換える.
+ * - primary: gRPCの書き込み, トランザクション外の処理(spring.datasource.hikari)
+ * - messaging: 受信メッセージの処理(重複検知, Saga, Outbox)(app.datasource.pools.messaging)
+ * - read: 読み取り専用トランザクション(app.datasource.pools.read), レプリカがある場合はレプリカを優先する
+ * プライマリへのコネクション数の合計はspring.datasource.hikari.maximum-pool-sizeのままとし, primary, messaging, readに分割する.
+ * messagingは受信メッセージの同時処理数(MessagingConcurrency)と同じ数とする.
+ * 各プールはHikariのメトリクス(hikaricp.connections.pending, hikaricp.connections.acquireなど)を出力する.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.pools.messaging")
+    public HikariDataSource messagingDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("messaging");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.pools.read")
+    public HikariDataSource readDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("read");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource readDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replicas.urls:}") List<String> urls,
+            @Value("${app.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.datasource.routing.selection:ROUND_ROBIN}") ReplicaSelection selection,
+            @Value("${app.datasource.routing.max-lag:5s}") Duration maxLag,
+            @Value("${app.datasource.routing.lag-check-interval:2s}") Duration lagCheckInterval
+    ) {
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(readDataSource.getConnectionTimeout());
+            replica.setIdleTimeout(readDataSource.getIdleTimeout());
+            replica.setMaxLifetime(readDataSource.getMaxLifetime());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(readDataSource, replicas, selection, maxLag, lagCheckInterval, meterRegistry);
+    }
+
+    @Bean
+    public WorkloadRoutingDataSource workloadRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            HikariDataSource messagingDataSource,
+            HikariDataSource readDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource,
+            MeterRegistry meterRegistry,
+            MessagingConcurrency messagingConcurrency,
+            @Value("${app.datasource.pools.read-share:0.25}") double readShare
+    ) {
+        // 各プールの設定のバインド後, コネクションの取得前に分割する
+        int total = primaryDataSource.getMaximumPoolSize();
+        int messaging = messagingConcurrency.connections();
+        int read = share(total, readShare);
+        int primary = total - messaging - read;
+        if (primary < 1) {
+            throw new IllegalStateException(("No connections left for the primary pool (total %d, messaging %d, read %d); "
+                    + "raise DB_MAX_POOL_SIZE or lower DB_MESSAGING_POOL_SHARE or DB_READ_POOL_SHARE")
+                    .formatted(total, messaging, read));
+        }
+        messagingDataSource.setMaximumPoolSize(messaging);
+        readDataSource.setMaximumPoolSize(read);
+        primaryDataSource.setMaximumPoolSize(primary);
+
+        Map<Workload, DataSource> targets = new EnumMap<>(Workload.class);
+        targets.put(Workload.WRITE, primaryDataSource);
+        targets.put(Workload.MESSAGING, messagingDataSource);
+        // レプリカがない場合は振り分けを挟まずに読み込み用のプールを使用する
+        targets.put(Workload.READ, replicaRoutingDataSource.hasReplicas() ? replicaRoutingDataSource : readDataSource);
+        return new WorkloadRoutingDataSource(targets, meterRegistry);
+    }
+
+    static int share(int total, double share) {
+        return Math.max((int) Math.round(total * share), 1);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(WorkloadRoutingDataSource workloadRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(workloadRoutingDataSource);
+    }
+}
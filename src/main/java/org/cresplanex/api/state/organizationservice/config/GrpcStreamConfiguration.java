@@ -0,0 +1,31 @@
+package org.cresplanex.api.state.organizationservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * サーバーストリーミングRPCの送信処理を実行するスレッドプール.
+ * gRPCのonReadyコールバックは呼び出しスレッドで直列に実行されるため,
+ * DBカーソルの読み進めとフロー制御による待機は別スレッドで行う必要がある.
+ */
+@Configuration
+public class GrpcStreamConfiguration {
+
+    public static final String GRPC_STREAM_EXECUTOR = "grpcStreamExecutor";
+
+    @Bean(name = GRPC_STREAM_EXECUTOR, destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor grpcStreamExecutor(
+            @Value("${app.grpc.stream.pool-size:8}") int poolSize,
+            @Value("${app.grpc.stream.queue-capacity:64}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("grpc-stream-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,40 @@
+package org.cresplanex.api.state.organizationservice.config;
+
+import org.cresplanex.api.state.organizationservice.messaging.LocalMessageDispatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 自サービス宛てのSagaコマンド/リプライのプロセス内配送.
+ * Outbox → CDC → Kafka → 自サービスの往復を待たずに, コミット直後に同じハンドラで処理する.
+ */
+@Configuration
+public class LocalMessageDispatchConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public LocalMessageDispatcher localMessageDispatcher(
+            @Value("${app.messaging.local-dispatch.pool-size:4}") int poolSize,
+            @Value("${app.messaging.local-dispatch.channels:}") Set<String> channels,
+            @Value("${app.messaging.local-dispatch.broker-only-ttl:15m}") Duration brokerOnlyTtl,
+            @Value("${app.messaging.local-dispatch.enabled:true}") boolean enabled
+    ) {
+        // 同じキーのメッセージを直列に処理するため, レーンごとに単一スレッドとする
+        List<ThreadPoolTaskExecutor> lanes = new ArrayList<>(poolSize);
+        for (int i = 0; i < Math.max(poolSize, 1); i++) {
+            ThreadPoolTaskExecutor lane = new ThreadPoolTaskExecutor();
+            lane.setCorePoolSize(1);
+            lane.setMaxPoolSize(1);
+            lane.setThreadNamePrefix("local-message-" + i + "-");
+            lane.initialize();
+            lanes.add(lane);
+        }
+        return new LocalMessageDispatcher(lanes, channels, brokerOnlyTtl, enabled);
+    }
+}
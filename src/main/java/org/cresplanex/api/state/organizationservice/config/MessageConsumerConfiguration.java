@@ -1,8 +1,14 @@
 package org.cresplanex.api.state.organizationservice.config;
 
-import org.cresplanex.core.common.jdbc.CoreJdbcStatementExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.organizationservice.messaging.CachingDuplicateMessageDetector;
+import org.cresplanex.api.state.organizationservice.messaging.LocalDispatchingMessageConsumerImplementation;
+import org.cresplanex.api.state.organizationservice.messaging.LocalMessageDispatcher;
+import org.cresplanex.api.state.organizationservice.messaging.PublishTimeDuplicateMessageDetector;
+import org.cresplanex.api.state.organizationservice.messaging.SubscriptionRegistry;
+import org.cresplanex.api.state.organizationservice.messaging.SwimlaneQueueDepthTracker;
+import org.cresplanex.api.state.organizationservice.messaging.SwimlaneTrackingMessageConsumerImplementation;
 import org.cresplanex.core.common.jdbc.CoreSchema;
-import org.cresplanex.core.common.jdbc.CoreTransactionTemplate;
 import org.cresplanex.core.common.jdbc.sqldialect.SqlDialectSelector;
 import org.cresplanex.core.common.kafka.consumer.CoreKafkaMessageConsumer;
 import org.cresplanex.core.messaging.common.ChannelMapping;
@@ -14,7 +20,6 @@ import org.cresplanex.core.messaging.consumer.decorator.BuiltInMessageHandlerDec
 import org.cresplanex.core.messaging.consumer.decorator.DecoratedMessageHandlerFactory;
 import org.cresplanex.core.messaging.consumer.decorator.OptimisticLockingDecoratorConfiguration;
 import org.cresplanex.core.messaging.consumer.duplicate.DuplicateMessageDetector;
-import org.cresplanex.core.messaging.consumer.duplicate.SqlTableBasedDuplicateMessageDetector;
 import org.cresplanex.core.messaging.consumer.kafka.MessageConsumerKafkaImplementation;
 import org.cresplanex.core.messaging.consumer.subscribermap.SubscriberMapping;
 import org.cresplanex.core.messaging.consumer.subscribermap.SubscriberMappingDefaultConfiguration;
@@ -22,6 +27,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
 
 @Configuration
 @Import({
@@ -34,29 +43,51 @@ import org.springframework.context.annotation.Import;
     SubscriberMappingDefaultConfiguration.class, // デフォルトのサブスクライバーIDマッピング利用
     // デコレータ
     BuiltInMessageHandlerDecoratorConfiguration.class, // decorator Factory + pre/post handle, pre/post receive interceptor + duplicate handling
-    OptimisticLockingDecoratorConfiguration.class // 楽観的ロックの失敗時のリトライ
+    OptimisticLockingDecoratorConfiguration.class, // 楽観的ロックの失敗時のリトライ
+    LocalMessageDispatchConfiguration.class // 自サービス宛てのプロセス内配送
 })
 public class MessageConsumerConfiguration {
 
-    // Kafkaを利用
     @Bean
-    public MessageConsumerImplementation messageConsumerImplementation(CoreKafkaMessageConsumer coreKafkaMessageConsumer) {
-        return new MessageConsumerKafkaImplementation(coreKafkaMessageConsumer);
+    public SubscriptionRegistry subscriptionRegistry() {
+        return new SubscriptionRegistry();
+    }
+
+    // Kafkaを利用(購読したハンドラはプロセス内配送にも登録)
+    @Bean
+    public MessageConsumerImplementation messageConsumerImplementation(CoreKafkaMessageConsumer coreKafkaMessageConsumer,
+            LocalMessageDispatcher localMessageDispatcher,
+            SubscriptionRegistry subscriptionRegistry,
+            SwimlaneQueueDepthTracker swimlaneQueueDepthTracker) {
+        return new LocalDispatchingMessageConsumerImplementation(
+                new SwimlaneTrackingMessageConsumerImplementation(
+                        new MessageConsumerKafkaImplementation(coreKafkaMessageConsumer),
+                        swimlaneQueueDepthTracker),
+                localMessageDispatcher,
+                subscriptionRegistry);
     }
 
     @Value("${spring.datasource.driver-class-name}")
     private String driver;
 
-    // Duplicate実装
+    // Duplicate実装(処理済みのメッセージはメモリで判定し, 未知のものは発行時刻のパーティションに記録)
     @Bean
     public DuplicateMessageDetector duplicateMessageDetector(CoreSchema coreSchema,
             SqlDialectSelector sqlDialectSelector,
-            CoreJdbcStatementExecutor coreJdbcStatementExecutor,
-            CoreTransactionTemplate coreTransactionTemplate) {
-        return new SqlTableBasedDuplicateMessageDetector(coreSchema,
-                sqlDialectSelector.getDialect(driver).getCurrentTimeInMillisecondsExpression(),
-                coreJdbcStatementExecutor,
-                coreTransactionTemplate);
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.messaging.duplicate-detection.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${app.messaging.duplicate-detection.cache.maximum-size:100000}") long maximumSize,
+            @Value("${app.messaging.duplicate-detection.cache.ttl:1h}") Duration ttl) {
+        DuplicateMessageDetector detector = new PublishTimeDuplicateMessageDetector(jdbcTemplate,
+                transactionTemplate,
+                coreSchema,
+                sqlDialectSelector.getDialect(driver).getCurrentTimeInMillisecondsExpression());
+        if (!cacheEnabled) {
+            return detector;
+        }
+        return new CachingDuplicateMessageDetector(detector, maximumSize, ttl, meterRegistry);
     }
 
     // Consumerの実装
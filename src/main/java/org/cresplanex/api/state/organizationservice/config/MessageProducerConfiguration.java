@@ -1,8 +1,15 @@
 package org.cresplanex.api.state.organizationservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.organizationservice.messaging.LocalDispatchingMessageProducerImplementation;
+import org.cresplanex.api.state.organizationservice.messaging.LocalMessageDispatcher;
+import org.cresplanex.api.state.organizationservice.messaging.OutboxMessageWriter;
+import org.cresplanex.api.state.organizationservice.messaging.TransactionalBufferingMessageProducerImplementation;
 import org.cresplanex.core.common.id.IdGenerator;
 import org.cresplanex.core.common.jdbc.CoreCommonJdbcOperations;
 import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.cresplanex.core.common.jdbc.OutboxPartitioningSpec;
+import org.cresplanex.core.common.jdbc.sqldialect.SqlDialectSelector;
 import org.cresplanex.core.messaging.common.ChannelMapping;
 import org.cresplanex.core.messaging.common.ChannelMappingDefaultConfiguration;
 import org.cresplanex.core.messaging.common.MessageInterceptor;
@@ -11,9 +18,11 @@ import org.cresplanex.core.messaging.producer.MessageProducerImpl;
 import org.cresplanex.core.messaging.producer.MessageProducerImplementation;
 import org.cresplanex.core.messaging.producer.jdbc.MessageProducerJdbcImplementation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
 @Import({
@@ -21,17 +30,35 @@ import org.springframework.context.annotation.Import;
     CoreCommonJdbcOperationsConfiguration.class, // JDBCの実装
     // マッピング
     ChannelMappingDefaultConfiguration.class, // デフォルトのチャネルマッピング利用
+    LocalMessageDispatchConfiguration.class, // 自サービス宛てのプロセス内配送
 })
 public class MessageProducerConfiguration {
 
-    // JDBCを利用
+    // JDBCを利用(自サービス宛てはコミット後にプロセス内でも配送)
+    // トランザクション内の送信はコミット直前にまとめて書き込む
     @Bean
     public MessageProducerImplementation messageProducerImplementation(CoreCommonJdbcOperations coreCommonJdbcOperations,
             IdGenerator idGenerator,
-            CoreSchema coreSchema) {
-        return new MessageProducerJdbcImplementation(coreCommonJdbcOperations,
+            CoreSchema coreSchema,
+            LocalMessageDispatcher localMessageDispatcher,
+            JdbcTemplate jdbcTemplate,
+            SqlDialectSelector sqlDialectSelector,
+            MeterRegistry meterRegistry,
+            OutboxPartitioningSpec outboxPartitioningSpec,
+            @Value("${spring.datasource.driver-class-name}") String driver,
+            @Value("${app.messaging.outbox.batch.enabled:true}") boolean batchEnabled) {
+        MessageProducerImplementation implementation = new MessageProducerJdbcImplementation(coreCommonJdbcOperations,
                 idGenerator,
                 coreSchema);
+        if (batchEnabled) {
+            implementation = new TransactionalBufferingMessageProducerImplementation(implementation,
+                    new OutboxMessageWriter(jdbcTemplate, coreSchema,
+                            sqlDialectSelector.getDialect(driver).getCurrentTimeInMillisecondsExpression(),
+                            outboxPartitioningSpec),
+                    idGenerator,
+                    meterRegistry);
+        }
+        return new LocalDispatchingMessageProducerImplementation(implementation, localMessageDispatcher);
     }
 
     @Autowired(required = false)
@@ -0,0 +1,59 @@
+package org.cresplanex.api.state.organizationservice.datasource;
+
+import org.cresplanex.api.state.organizationservice.enums.ReadConsistency;
+import org.cresplanex.api.state.organizationservice.interceptor.RequestMetadataInterceptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * 読み取り専用トランザクションをプライマリに固定するための指定.
+ * 以下のいずれかに該当する場合, ReplicaRoutingDataSourceはレプリカではなくプライマリを選択する.
+ * - onPrimaryの実行中
+ * - requirePrimaryForCurrentTransactionを呼び出したトランザクション内
+ * - リクエストヘッダーx-read-consistencyでSTRONGが指定されたリクエスト
+ */
+public class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+    private static final Object TRANSACTION_RESOURCE_KEY = new Object();
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get()
+                || TransactionSynchronizationManager.hasResource(TRANSACTION_RESOURCE_KEY)
+                || RequestMetadataInterceptor.readConsistency() == ReadConsistency.STRONG;
+    }
+
+    /**
+     * supplierの実行中に開始したトランザクションの読み込みをプライマリで行う.
+     */
+    public static <T> T onPrimary(Supplier<T> supplier) {
+        boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(true);
+        try {
+            return supplier.get();
+        } finally {
+            PRIMARY_REQUIRED.set(previous);
+        }
+    }
+
+    /**
+     * 現在のトランザクションの読み込みをプライマリで行う.
+     * コネクションは最初のクエリで取得されるため, クエリの発行前に呼び出すこと.
+     * トランザクション外で呼び出した場合は何もしない.
+     */
+    public static void requirePrimaryForCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(TRANSACTION_RESOURCE_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(TRANSACTION_RESOURCE_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_RESOURCE_KEY);
+            }
+        });
+    }
+}
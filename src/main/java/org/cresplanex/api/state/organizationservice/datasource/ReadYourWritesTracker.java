@@ -0,0 +1,67 @@
+package org.cresplanex.api.state.organizationservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationInvalidatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * 直近に変更された組織を記録し, その組織の読み込みを一定時間プライマリに固定する(read your writes).
+ * ジョブの完了などによる変更はOrganizationInvalidatedEventとして通知されるため, それを受けて記録する.
+ * レプリカの遅延中に古い値を読み込み, キャッシュに再登録してしまうことも防ぐ.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentlyWritten;
+
+    public ReadYourWritesTracker(
+            @Value("${app.datasource.routing.sticky-window:5s}") Duration stickyWindow,
+            @Value("${app.datasource.routing.sticky-maximum-size:100000}") long maximumSize
+    ) {
+        this.recentlyWritten = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @EventListener
+    public void onOrganizationInvalidated(OrganizationInvalidatedEvent event) {
+        recentlyWritten.put(event.organizationId(), Boolean.TRUE);
+    }
+
+    public boolean isRecentlyWritten(String organizationId) {
+        return recentlyWritten.getIfPresent(organizationId) != null;
+    }
+
+    /**
+     * 組織が直近に変更されている場合, 現在のトランザクションの読み込みをプライマリで行う.
+     */
+    public void requirePrimaryIfRecentlyWritten(String organizationId) {
+        if (isRecentlyWritten(organizationId)) {
+            ReadRouting.requirePrimaryForCurrentTransaction();
+        }
+    }
+
+    public void requirePrimaryIfRecentlyWritten(Collection<String> organizationIds) {
+        if (organizationIds.stream().anyMatch(this::isRecentlyWritten)) {
+            ReadRouting.requirePrimaryForCurrentTransaction();
+        }
+    }
+
+    /**
+     * いずれかの組織が直近に変更されている場合, supplierの読み込みをプライマリで行う.
+     */
+    public <T> T readAfterWrites(Collection<String> organizationIds, Supplier<T> supplier) {
+        if (organizationIds.stream().anyMatch(this::isRecentlyWritten)) {
+            return ReadRouting.onPrimary(supplier);
+        }
+        return supplier.get();
+    }
+}
@@ -0,0 +1,168 @@
+package org.cresplanex.api.state.organizationservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.enums.ReplicaSelection;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 読み取り専用トランザクションをレプリカに振り分けるDataSource.
+ * 読み書きトランザクション, トランザクション外, ReadRoutingでプライマリが指定された場合はプライマリを使用する.
+ * レプリカは定期的に遅延を計測し, 計測に失敗したものや遅延がmaxLagを超えたものは選択しない.
+ * 選択可能なレプリカがない場合はプライマリにフォールバックする.
+ * WorkloadRoutingDataSourceと組み合わせる場合, プライマリには読み込み用のプールを指定する.
+ *
+ * トランザクションの読み取り専用属性はコネクション取得後に設定されるため, LazyConnectionDataSourceProxyで包んで利用すること.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private static final String LAG_SQL = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() THEN 0"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+    private final Counter fallbackReads;
+    private final ScheduledExecutorService lagMonitor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(
+            DataSource primary,
+            Map<String, HikariDataSource> replicas,
+            ReplicaSelection selection,
+            Duration maxLag,
+            Duration lagCheckInterval,
+            MeterRegistry meterRegistry
+    ) {
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.selection = selection;
+        this.maxLag = maxLag;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.replicaReads = Counter.builder("datasource.routing.reads").tag("target", "replica").register(meterRegistry);
+        this.primaryReads = Counter.builder("datasource.routing.reads").tag("target", "primary").register(meterRegistry);
+        this.fallbackReads = Counter.builder("datasource.routing.reads").tag("target", "fallback").register(meterRegistry);
+        for (Replica replica : this.replicas) {
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+
+        if (!this.replicas.isEmpty()) {
+            long interval = lagCheckInterval.toMillis();
+            lagMonitor.scheduleWithFixedDelay(this::checkLag, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (ReadRouting.isPrimaryRequired()) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+
+        List<Replica> available = replicas.stream().filter(replica -> replica.available).toList();
+        if (available.isEmpty()) {
+            fallbackReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return switch (selection) {
+            case LEAST_CONNECTIONS -> available.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .orElseThrow()
+                    .name;
+            default -> available.get(Math.floorMod(next.getAndIncrement(), available.size())).name;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        lagMonitor.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            try {
+                Double lag = new JdbcTemplate(replica.dataSource).queryForObject(LAG_SQL, Double.class);
+                replica.lagSeconds = lag == null ? 0 : lag;
+                boolean available = replica.lagSeconds * 1000 <= maxLag.toMillis();
+                if (replica.available != available) {
+                    log.info("Replica {} is now {} (lag={}s)", replica.name, available ? "available" : "unavailable",
+                            replica.lagSeconds);
+                }
+                replica.available = available;
+            } catch (Exception e) {
+                if (replica.available) {
+                    log.warn("Replica {} is now unavailable: {}", replica.name, e.getMessage());
+                }
+                replica.available = false;
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        // 初回の計測が完了するまでは選択しない
+        private volatile boolean available = false;
+        private volatile double lagSeconds = 0;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.cresplanex.api.state.organizationservice.datasource;
+
+import org.cresplanex.api.state.organizationservice.enums.Workload;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * コネクションを取得する処理のワークロードを判定する.
+ * - MESSAGING: 受信メッセージの処理中(重複検知, Sagaの進行, リプライ・イベントのOutboxへの書き込み)
+ * - READ: 読み取り専用トランザクション(gRPCの読み込み)
+ * - WRITE: 上記以外(gRPCの書き込み, トランザクション外の処理)
+ */
+public class WorkloadRouting {
+
+    private static final ThreadLocal<Boolean> MESSAGING = ThreadLocal.withInitial(() -> false);
+
+    public static Workload current() {
+        if (MESSAGING.get()) {
+            return Workload.MESSAGING;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Workload.READ;
+        }
+        return Workload.WRITE;
+    }
+
+    /**
+     * runnableの実行中に取得するコネクションをメッセージ処理用のプールから取得する.
+     */
+    public static void onMessaging(Runnable runnable) {
+        boolean previous = MESSAGING.get();
+        MESSAGING.set(true);
+        try {
+            runnable.run();
+        } finally {
+            MESSAGING.set(previous);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.cresplanex.api.state.organizationservice.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.api.state.organizationservice.enums.Workload;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ワークロードごとのコネクションプールに振り分けるDataSource.
+ * 読み込みの集中とメッセージの滞留が, 互いのコネクションを枯渇させないようにする.
+ * トランザクションはコネクションを1つに固定するため, 同じトランザクション内の更新とOutboxへの書き込みは同じプールで行われる.
+ *
+ * トランザクションの読み取り専用属性はコネクション取得後に設定されるため, LazyConnectionDataSourceProxyで包んで利用すること.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<Workload, Counter> connections = new EnumMap<>(Workload.class);
+
+    public WorkloadRoutingDataSource(Map<Workload, DataSource> targets, MeterRegistry meterRegistry) {
+        setTargetDataSources(new HashMap<>(targets));
+        setDefaultTargetDataSource(targets.get(Workload.WRITE));
+
+        for (Workload workload : Workload.values()) {
+            connections.put(workload, Counter.builder("datasource.routing.connections")
+                    .tag("workload", workload.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Workload workload = WorkloadRouting.current();
+        connections.get(workload).increment();
+        return workload;
+    }
+}
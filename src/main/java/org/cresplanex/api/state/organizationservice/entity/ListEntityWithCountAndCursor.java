@@ -0,0 +1,23 @@
+package org.cresplanex.api.state.organizationservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 件数に加え, 次ページ取得用のカーソルを保持する一覧.
+ * 次ページが存在しない場合やカーソルページネーション以外の場合, nextCursorはnull.
+ */
+@Getter
+@AllArgsConstructor
+public class ListEntityWithCountAndCursor<T> {
+
+    private final List<T> data;
+    private final int count;
+    private final String nextCursor;
+
+    public static <T> ListEntityWithCountAndCursor<T> of(List<T> data, int count) {
+        return new ListEntityWithCountAndCursor<>(data, count, null);
+    }
+}
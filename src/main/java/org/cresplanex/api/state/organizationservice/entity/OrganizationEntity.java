@@ -19,7 +19,10 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "organizations",
-    indexes = {@Index(name = "organizations_owner_id_index", columnList = "owner_id")
+    indexes = {@Index(name = "organizations_owner_id_index", columnList = "owner_id"),
+        @Index(name = "organizations_created_at_organization_id_index", columnList = "created_at, organization_id"),
+        @Index(name = "organizations_name_created_at_organization_id_index", columnList = "name, created_at DESC, organization_id DESC"),
+        @Index(name = "organizations_name_desc_created_at_organization_id_index", columnList = "name DESC, created_at DESC, organization_id DESC")
 })
 public class OrganizationEntity extends BaseEntity<OrganizationEntity> {
 
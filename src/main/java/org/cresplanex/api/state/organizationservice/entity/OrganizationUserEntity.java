@@ -15,7 +15,10 @@ import org.hibernate.Hibernate;
 @Table(name = "organization_user", indexes = {
         @Index(name = "organization_user_organization_id_index", columnList = "organization_id"),
         @Index(name = "organization_user_user_id_index", columnList = "user_id"),
-        @Index(name = "organization_user_organization_id_user_id_index", columnList = "organization_id, user_id", unique = true)
+        @Index(name = "organization_user_organization_id_user_id_index", columnList = "organization_id, user_id", unique = true),
+        @Index(name = "organization_user_organization_id_created_at_index", columnList = "organization_id, created_at, organization_user_id"),
+        @Index(name = "organization_user_user_id_created_at_index", columnList = "user_id, created_at, organization_user_id"),
+        @Index(name = "organization_user_user_id_organization_id_index", columnList = "user_id, organization_id, created_at, organization_user_id")
 })
 public class OrganizationUserEntity extends BaseEntity<OrganizationUserEntity> {
 
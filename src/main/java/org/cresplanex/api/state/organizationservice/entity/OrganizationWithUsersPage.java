@@ -0,0 +1,17 @@
+package org.cresplanex.api.state.organizationservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationUserView;
+
+/**
+ * 組織と, 所属ユーザーの1ページ分.
+ * usersの件数は所属ユーザーの総数, nextCursorは続きの所属ユーザーを取得するためのカーソル(最終ページの場合はnull).
+ */
+@Getter
+@AllArgsConstructor
+public class OrganizationWithUsersPage {
+
+    private final OrganizationEntity organization;
+    private final ListEntityWithCountAndCursor<OrganizationUserView> users;
+}
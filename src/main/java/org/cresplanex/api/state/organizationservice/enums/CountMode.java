@@ -0,0 +1,7 @@
+package org.cresplanex.api.state.organizationservice.enums;
+
+public enum CountMode {
+    EXACT,
+    CACHED,
+    ESTIMATED,
+}
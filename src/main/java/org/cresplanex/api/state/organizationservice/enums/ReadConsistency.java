@@ -0,0 +1,6 @@
+package org.cresplanex.api.state.organizationservice.enums;
+
+public enum ReadConsistency {
+    EVENTUAL,
+    STRONG,
+}
@@ -0,0 +1,6 @@
+package org.cresplanex.api.state.organizationservice.enums;
+
+public enum ReplicaSelection {
+    ROUND_ROBIN,
+    LEAST_CONNECTIONS,
+}
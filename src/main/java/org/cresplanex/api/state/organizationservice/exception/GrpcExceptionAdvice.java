@@ -38,6 +38,13 @@ public class GrpcExceptionAdvice {
                  .build();
      }
 
+    @GrpcExceptionHandler(InvalidCursorException.class)
+    public Status handleInvalidCursorException(InvalidCursorException e) {
+        return Status.INVALID_ARGUMENT
+                .withDescription(e.getMessage())
+                .withCause(e);
+    }
+
     @GrpcExceptionHandler
     public Status handleInternal(Throwable e) {
         log.error("Internal error", e);
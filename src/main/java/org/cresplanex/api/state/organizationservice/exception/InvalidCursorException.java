@@ -0,0 +1,20 @@
+package org.cresplanex.api.state.organizationservice.exception;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+public class InvalidCursorException extends RuntimeException {
+
+    private final String cursor;
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+        this.cursor = cursor;
+    }
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("Invalid cursor: " + cursor, cause);
+        this.cursor = cursor;
+    }
+}
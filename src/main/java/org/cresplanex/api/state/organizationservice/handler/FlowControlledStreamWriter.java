@@ -0,0 +1,68 @@
+package org.cresplanex.api.state.organizationservice.handler;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.function.Consumer;
+
+/**
+ * gRPCのフロー制御(isReady/onReadyHandler)に従ってレスポンスを送信する.
+ * クライアントの受信が追いつかない間は送信スレッドを待機させ, サーバー側のバッファにメッセージを溜め込まない.
+ * コンストラクタは呼び出しスレッド(ハンドラメソッド内)で, acceptは送信用の別スレッドで呼び出すこと.
+ */
+public class FlowControlledStreamWriter<T> implements Consumer<T> {
+
+    private final ServerCallStreamObserver<T> observer;
+    private final Object lock = new Object();
+    private volatile boolean cancelled = false;
+
+    public FlowControlledStreamWriter(StreamObserver<T> responseObserver) {
+        this.observer = (ServerCallStreamObserver<T>) responseObserver;
+        this.observer.setOnReadyHandler(this::signal);
+        this.observer.setOnCancelHandler(() -> {
+            cancelled = true;
+            signal();
+        });
+    }
+
+    @Override
+    public void accept(T message) {
+        synchronized (lock) {
+            while (!cancelled && !observer.isReady()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw Status.CANCELLED.withDescription("Stream interrupted").withCause(e).asRuntimeException();
+                }
+            }
+        }
+        if (cancelled) {
+            throw Status.CANCELLED.withDescription("Stream cancelled by client").asRuntimeException();
+        }
+        observer.onNext(message);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void complete() {
+        if (!cancelled) {
+            observer.onCompleted();
+        }
+    }
+
+    public void error(Throwable t) {
+        if (!cancelled) {
+            observer.onError(t);
+        }
+    }
+
+    private void signal() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+}
@@ -3,10 +3,11 @@ package org.cresplanex.api.state.organizationservice.handler;
 import build.buf.gen.cresplanex.nova.v1.Count;
 import build.buf.gen.cresplanex.nova.v1.SortOrder;
 import build.buf.gen.organization.v1.*;
-import org.cresplanex.api.state.common.entity.ListEntityWithCount;
 import org.cresplanex.api.state.common.enums.PaginationType;
+import org.cresplanex.api.state.organizationservice.entity.ListEntityWithCountAndCursor;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationWithUsersPage;
 import org.cresplanex.api.state.organizationservice.enums.OrganizationOnUserSortType;
 import org.cresplanex.api.state.organizationservice.enums.OrganizationSortType;
 import org.cresplanex.api.state.organizationservice.enums.OrganizationWithUsersSortType;
@@ -14,7 +15,12 @@ import org.cresplanex.api.state.organizationservice.enums.UserOnOrganizationSort
 import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
 import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
 import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.interceptor.RequestMetadataInterceptor;
+import org.cresplanex.api.state.organizationservice.interceptor.ResponseMetadataInterceptor;
 import org.cresplanex.api.state.organizationservice.mapper.proto.ProtoMapper;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationUserView;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationWithUsersQueryRepository.OrganizationWithUsersRow;
 
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
@@ -44,12 +50,15 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
 
     @Override
     public void findOrganizationWithUsers(FindOrganizationWithUsersRequest request, StreamObserver<FindOrganizationWithUsersResponse> responseObserver) {
-        OrganizationEntity organization = organizationService.findByIdWithUsers(request.getOrganizationId());
+        OrganizationWithUsersPage organization = organizationService.findByIdWithUsers(request.getOrganizationId(),
+                RequestMetadataInterceptor.memberLimit(), RequestMetadataInterceptor.memberCursor(),
+                RequestMetadataInterceptor.countMode());
 
         OrganizationWithUsers organizationProto = ProtoMapper.convertWithUsers(organization);
         FindOrganizationWithUsersResponse response = FindOrganizationWithUsersResponse.newBuilder()
                 .setOrganization(organizationProto)
                 .build();
+        ResponseMetadataInterceptor.putMemberPage(organization.getUsers().getCount(), organization.getUsers().getNextCursor());
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -82,9 +91,10 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
                 request.getFilterUser().getHasValue(), request.getFilterUser().getAny(), request.getFilterUser().getUserIdsList()
         );
 
-        ListEntityWithCount<OrganizationEntity> organizations = organizationService.get(
+        ListEntityWithCountAndCursor<OrganizationView> organizations = organizationService.get(
                 paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
-                request.getPagination().getCursor(), sortType, request.getWithCount(), planFilter, ownerFilter, usersFilter);
+                request.getPagination().getCursor(), sortType, request.getWithCount(), RequestMetadataInterceptor.countMode(),
+                planFilter, ownerFilter, usersFilter);
 
         List<Organization> organizationProtos = organizations.getData().stream()
                 .map(ProtoMapper::convert).toList();
@@ -95,6 +105,7 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
                                 .setCount(organizations.getCount()).build()
                 )
                 .build();
+        ResponseMetadataInterceptor.putNextCursor(organizations.getNextCursor());
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -127,9 +138,10 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
                 request.getFilterUser().getHasValue(), request.getFilterUser().getAny(), request.getFilterUser().getUserIdsList()
         );
 
-        ListEntityWithCount<OrganizationEntity> organizations = organizationService.getWithUsers(
+        ListEntityWithCountAndCursor<OrganizationWithUsersRow> organizations = organizationService.getWithUsers(
                 paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
-                request.getPagination().getCursor(), sortType, request.getWithCount(), planFilter, ownerFilter, usersFilter);
+                request.getPagination().getCursor(), sortType, request.getWithCount(), RequestMetadataInterceptor.countMode(),
+                planFilter, ownerFilter, usersFilter);
 
         List<OrganizationWithUsers> organizationProtos = organizations.getData().stream()
                 .map(ProtoMapper::convertWithUsers).toList();
@@ -140,6 +152,7 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
                                 .setCount(organizations.getCount()).build()
                 )
                 .build();
+        ResponseMetadataInterceptor.putNextCursor(organizations.getNextCursor());
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -197,9 +210,9 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
             default -> paginationType = PaginationType.NONE;
         }
 
-        ListEntityWithCount<OrganizationUserEntity> organizations = organizationService.getUsersOnOrganization(
+        ListEntityWithCountAndCursor<OrganizationUserView> organizations = organizationService.getUsersOnOrganization(
                 request.getOrganizationId(), paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
-                request.getPagination().getCursor(), sortType, request.getWithCount());
+                request.getPagination().getCursor(), sortType, request.getWithCount(), RequestMetadataInterceptor.countMode());
 
         List<UserOnOrganization> userOnOrganizations = organizations.getData().stream()
                 .map(ProtoMapper::convert).toList();
@@ -211,6 +224,7 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
                                 .setCount(organizations.getCount()).build()
                 )
                 .build();
+        ResponseMetadataInterceptor.putNextCursor(organizations.getNextCursor());
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -235,9 +249,9 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
             default -> paginationType = PaginationType.NONE;
         }
 
-        ListEntityWithCount<OrganizationUserEntity> organizations = organizationService.getOrganizationsOnUser(
+        ListEntityWithCountAndCursor<OrganizationUserView> organizations = organizationService.getOrganizationsOnUser(
                 request.getUserId(), paginationType, request.getPagination().getLimit(), request.getPagination().getOffset(),
-                request.getPagination().getCursor(), sortType, request.getWithCount());
+                request.getPagination().getCursor(), sortType, request.getWithCount(), RequestMetadataInterceptor.countMode());
 
         List<OrganizationOnUser> organizationOnUsers = organizations.getData().stream()
                 .map(ProtoMapper::convertOnUser).toList();
@@ -249,6 +263,7 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
                                 .setCount(organizations.getCount()).build()
                 )
                 .build();
+        ResponseMetadataInterceptor.putNextCursor(organizations.getNextCursor());
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -277,22 +292,24 @@ public class OrganizationServiceHandler extends OrganizationServiceGrpc.Organiza
         responseObserver.onCompleted();
     }
 
+    /**
+     * ユーザー追加ジョブを開始する.
+     * ユーザー数がチャンクサイズを超える場合はチャンクごとに独立したジョブに分割され, 各ジョブは個別に成功・失敗する.
+     * レスポンスのjobIdは先頭チャンクのジョブのみを表すため, 分割時はx-job-idsトレーラーのすべてのジョブを追跡する必要がある.
+     */
     @Override
     public void addOrganizationUser(AddOrganizationUserRequest request, StreamObserver<AddOrganizationUserResponse> responseObserver) {
         String operatorId = request.getOperatorId();
         String organizationId = request.getOrganizationId();
-        List<OrganizationUserEntity> users = request.getUsersList().stream()
-                .map(user -> {
-                    OrganizationUserEntity userEntity = new OrganizationUserEntity();
-                    userEntity.setUserId(user.getUserId());
-                    return userEntity;
-                })
+        List<String> userIds = request.getUsersList().stream()
+                .map(user -> user.getUserId())
                 .toList();
 
-        String jobId = organizationService.beginAddUsers(operatorId, organizationId, users);
+        List<String> jobIds = organizationService.beginAddUserIds(operatorId, organizationId, userIds);
         AddOrganizationUserResponse response = AddOrganizationUserResponse.newBuilder()
-                .setJobId(jobId)
+                .setJobId(jobIds.get(0))
                 .build();
+        ResponseMetadataInterceptor.putJobIds(jobIds);
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -0,0 +1,245 @@
+package org.cresplanex.api.state.organizationservice.handler;
+
+import build.buf.gen.cresplanex.nova.v1.SortOrder;
+import build.buf.gen.organization.v1.*;
+import com.google.protobuf.Message;
+import io.grpc.BindableService;
+import io.grpc.Context;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.cresplanex.api.state.organizationservice.config.GrpcStreamConfiguration;
+import org.cresplanex.api.state.organizationservice.enums.OrganizationOnUserSortType;
+import org.cresplanex.api.state.organizationservice.enums.OrganizationSortType;
+import org.cresplanex.api.state.organizationservice.enums.UserOnOrganizationSortType;
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.interceptor.ResponseMetadataInterceptor;
+import org.cresplanex.api.state.organizationservice.mapper.proto.ProtoMapper;
+import org.cresplanex.api.state.organizationservice.service.OrganizationService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 件数に上限のない一覧取得やユーザーの一括追加をストリーミングで扱うサービス.
+ * 1件ずつ送受信するため, 単一のリクエスト/レスポンスメッセージが肥大化しない.
+ * 既存のリクエスト/レスポンスメッセージを再利用し, サービス定義はここで登録する.
+ */
+@Slf4j
+@GrpcService
+public class OrganizationStreamServiceHandler implements BindableService {
+
+    public static final String SERVICE_NAME = "organization.v1.OrganizationStreamService";
+
+    public static final MethodDescriptor<GetOrganizationsRequest, Organization> STREAM_ORGANIZATIONS_METHOD =
+            serverStreamingMethod("StreamOrganizations",
+                    GetOrganizationsRequest.getDefaultInstance(), Organization.getDefaultInstance());
+
+    public static final MethodDescriptor<GetUsersOnOrganizationRequest, UserOnOrganization> STREAM_USERS_ON_ORGANIZATION_METHOD =
+            serverStreamingMethod("StreamUsersOnOrganization",
+                    GetUsersOnOrganizationRequest.getDefaultInstance(), UserOnOrganization.getDefaultInstance());
+
+    public static final MethodDescriptor<GetOrganizationsOnUserRequest, OrganizationOnUser> STREAM_ORGANIZATIONS_ON_USER_METHOD =
+            serverStreamingMethod("StreamOrganizationsOnUser",
+                    GetOrganizationsOnUserRequest.getDefaultInstance(), OrganizationOnUser.getDefaultInstance());
+
+    public static final MethodDescriptor<AddOrganizationUserRequest, AddOrganizationUserResponse> ADD_ORGANIZATION_USER_STREAM_METHOD =
+            MethodDescriptor.<AddOrganizationUserRequest, AddOrganizationUserResponse>newBuilder()
+                    .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "AddOrganizationUserStream"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(AddOrganizationUserRequest.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(AddOrganizationUserResponse.getDefaultInstance()))
+                    .build();
+
+    private final OrganizationService organizationService;
+    private final TaskExecutor streamExecutor;
+    private final int maxImportUsers;
+
+    public OrganizationStreamServiceHandler(
+            OrganizationService organizationService,
+            @Qualifier(GrpcStreamConfiguration.GRPC_STREAM_EXECUTOR) TaskExecutor streamExecutor,
+            @Value("${app.grpc.stream.max-import-users:100000}") int maxImportUsers
+    ) {
+        this.organizationService = organizationService;
+        this.streamExecutor = streamExecutor;
+        this.maxImportUsers = maxImportUsers;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(STREAM_ORGANIZATIONS_METHOD, ServerCalls.asyncServerStreamingCall(this::streamOrganizations))
+                .addMethod(STREAM_USERS_ON_ORGANIZATION_METHOD, ServerCalls.asyncServerStreamingCall(this::streamUsersOnOrganization))
+                .addMethod(STREAM_ORGANIZATIONS_ON_USER_METHOD, ServerCalls.asyncServerStreamingCall(this::streamOrganizationsOnUser))
+                .addMethod(ADD_ORGANIZATION_USER_STREAM_METHOD, ServerCalls.asyncClientStreamingCall(this::addOrganizationUserStream))
+                .build();
+    }
+
+    public void streamOrganizations(GetOrganizationsRequest request, StreamObserver<Organization> responseObserver) {
+        OrganizationSortType sortType = switch (request.getSort().getOrderField()) {
+            case ORGANIZATION_ORDER_FIELD_NAME -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
+                    OrganizationSortType.NAME_ASC : OrganizationSortType.NAME_DESC;
+            default -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
+                    OrganizationSortType.CREATED_AT_ASC : OrganizationSortType.CREATED_AT_DESC;
+        };
+
+        PlanFilter planFilter = new PlanFilter(
+                request.getFilterPlan().getHasValue(), request.getFilterPlan().getPlansList()
+        );
+
+        OwnerFilter ownerFilter = new OwnerFilter(
+                request.getFilterOwner().getHasValue(), request.getFilterOwner().getOwnerIdsList()
+        );
+
+        UsersFilter usersFilter = new UsersFilter(
+                request.getFilterUser().getHasValue(), request.getFilterUser().getAny(), request.getFilterUser().getUserIdsList()
+        );
+
+        FlowControlledStreamWriter<Organization> writer = new FlowControlledStreamWriter<>(responseObserver);
+        submit(writer, () -> organizationService.stream(sortType, planFilter, ownerFilter, usersFilter,
+                organization -> writer.accept(ProtoMapper.convert(organization))));
+    }
+
+    public void streamUsersOnOrganization(GetUsersOnOrganizationRequest request, StreamObserver<UserOnOrganization> responseObserver) {
+        UserOnOrganizationSortType sortType = (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
+                UserOnOrganizationSortType.ADD_AT_ASC : UserOnOrganizationSortType.ADD_AT_DESC;
+
+        FlowControlledStreamWriter<UserOnOrganization> writer = new FlowControlledStreamWriter<>(responseObserver);
+        submit(writer, () -> organizationService.streamUsersOnOrganization(request.getOrganizationId(), sortType,
+                user -> writer.accept(ProtoMapper.convert(user))));
+    }
+
+    public void streamOrganizationsOnUser(GetOrganizationsOnUserRequest request, StreamObserver<OrganizationOnUser> responseObserver) {
+        OrganizationOnUserSortType sortType = switch (request.getSort().getOrderField()) {
+            case ORGANIZATION_ON_USER_ORDER_FIELD_CREATE -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
+                    OrganizationOnUserSortType.CREATED_AT_ASC : OrganizationOnUserSortType.CREATED_AT_DESC;
+            case ORGANIZATION_ON_USER_ORDER_FIELD_NAME -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
+                    OrganizationOnUserSortType.NAME_ASC : OrganizationOnUserSortType.NAME_DESC;
+            default -> (request.getSort().getOrder() == SortOrder.SORT_ORDER_ASC) ?
+                    OrganizationOnUserSortType.ADD_AT_ASC : OrganizationOnUserSortType.ADD_AT_DESC;
+        };
+
+        FlowControlledStreamWriter<OrganizationOnUser> writer = new FlowControlledStreamWriter<>(responseObserver);
+        submit(writer, () -> organizationService.streamOrganizationsOnUser(request.getUserId(), sortType,
+                organizationUser -> writer.accept(ProtoMapper.convertOnUser(organizationUser))));
+    }
+
+    /**
+     * ユーザーIDを複数のAddOrganizationUserRequestに分割して受け取り, ストリーム完了時にユーザー追加ジョブを開始する.
+     * operatorIdとorganizationIdは最初のメッセージで確定し, 以降のメッセージでは省略できる(指定する場合は同一であること).
+     * ユーザーIDは受信の都度重複を除いて保持するため, リクエスト全体を単一のProtoとして保持しない.
+     * ジョブがチャンクに分割された場合, レスポンスのjobIdは先頭チャンクのジョブのみを表し, すべてのジョブIDはx-job-idsトレーラーで返す.
+     */
+    public StreamObserver<AddOrganizationUserRequest> addOrganizationUserStream(
+            StreamObserver<AddOrganizationUserResponse> responseObserver
+    ) {
+        return new StreamObserver<>() {
+            private final Set<String> userIds = new LinkedHashSet<>();
+            private String operatorId;
+            private String organizationId;
+            private boolean failed = false;
+
+            @Override
+            public void onNext(AddOrganizationUserRequest request) {
+                if (failed) {
+                    return;
+                }
+                if (organizationId == null) {
+                    operatorId = request.getOperatorId();
+                    organizationId = request.getOrganizationId();
+                } else if ((!request.getOrganizationId().isEmpty() && !request.getOrganizationId().equals(organizationId))
+                        || (!request.getOperatorId().isEmpty() && !request.getOperatorId().equals(operatorId))) {
+                    fail(Status.INVALID_ARGUMENT.withDescription("organizationId and operatorId must not change within a stream"));
+                    return;
+                }
+                request.getUsersList().forEach(user -> userIds.add(user.getUserId()));
+                if (userIds.size() > maxImportUsers) {
+                    fail(Status.RESOURCE_EXHAUSTED.withDescription("Too many users in a stream: max " + maxImportUsers));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                failed = true;
+                userIds.clear();
+                log.debug("AddOrganizationUserStream cancelled: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                if (organizationId == null) {
+                    fail(Status.INVALID_ARGUMENT.withDescription("Empty stream"));
+                    return;
+                }
+
+                List<String> jobIds = organizationService.beginAddUserIds(operatorId, organizationId, userIds);
+                userIds.clear();
+                AddOrganizationUserResponse response = AddOrganizationUserResponse.newBuilder()
+                        .setJobId(jobIds.get(0))
+                        .build();
+                ResponseMetadataInterceptor.putJobIds(jobIds);
+
+                responseObserver.onNext(response);
+                responseObserver.onCompleted();
+            }
+
+            private void fail(Status status) {
+                failed = true;
+                userIds.clear();
+                responseObserver.onError(status.asRuntimeException());
+            }
+        };
+    }
+
+    /**
+     * 送信処理をストリーム用スレッドプールで実行する.
+     * プールが埋まっている場合はRESOURCE_EXHAUSTEDを返す.
+     */
+    private void submit(FlowControlledStreamWriter<?> writer, Runnable task) {
+        Runnable wrapped = Context.current().wrap(() -> {
+            try {
+                task.run();
+                writer.complete();
+            } catch (StatusRuntimeException e) {
+                if (!writer.isCancelled()) {
+                    log.warn("Stream failed: {}", e.getStatus());
+                }
+                writer.error(e);
+            } catch (Exception e) {
+                log.error("Stream failed", e);
+                writer.error(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+            }
+        });
+        try {
+            streamExecutor.execute(wrapped);
+        } catch (TaskRejectedException e) {
+            writer.error(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent streams").asRuntimeException());
+        }
+    }
+
+    private static <ReqT extends Message, RespT extends Message>
+    MethodDescriptor<ReqT, RespT> serverStreamingMethod(String methodName, ReqT requestDefault, RespT responseDefault) {
+        return MethodDescriptor.<ReqT, RespT>newBuilder()
+                .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, methodName))
+                .setRequestMarshaller(ProtoUtils.marshaller(requestDefault))
+                .setResponseMarshaller(ProtoUtils.marshaller(responseDefault))
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package org.cresplanex.api.state.organizationservice.index;
+
+import org.cresplanex.api.state.organizationservice.projection.OrganizationUserView;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+
+import java.time.LocalDateTime;
+
+/**
+ * インデックスから取得したユーザーの所属.
+ *
+ * @param organizationUserId 所属ID
+ * @param userId ユーザーID
+ * @param addedAt 所属した日時(organization_user.created_at)
+ * @param organization 所属する組織
+ */
+public record Membership(
+        String organizationUserId,
+        String userId,
+        LocalDateTime addedAt,
+        OrganizationView organization
+) {
+
+    public OrganizationUserView toView() {
+        return new OrganizationUserView(organizationUserId, userId, addedAt, organization);
+    }
+}
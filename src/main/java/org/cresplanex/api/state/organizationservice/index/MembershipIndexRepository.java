@@ -0,0 +1,94 @@
+package org.cresplanex.api.state.organizationservice.index;
+
+import lombok.RequiredArgsConstructor;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * メンバーシップインデックスの構築・更新のためにorganizations, organization_userを読み込む.
+ * 全件読み込みはfetchSizeを指定したサーバーサイドカーソルで1行ずつ処理し, 結果をListに保持しない.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MembershipIndexRepository {
+
+    private static final String SELECT_ORGANIZATIONS =
+            "SELECT organization_id, owner_id, name, plan, site_url, created_at FROM organizations";
+
+    private static final String SELECT_MEMBERSHIPS =
+            "SELECT organization_user_id, organization_id, user_id, created_at FROM organization_user";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void forEachOrganization(int fetchSize, Consumer<OrganizationView> consumer) {
+        stream(SELECT_ORGANIZATIONS, fetchSize, rs -> consumer.accept(toOrganization(rs)));
+    }
+
+    public void forEachMembership(int fetchSize, Consumer<MembershipRow> consumer) {
+        stream(SELECT_MEMBERSHIPS, fetchSize, rs -> consumer.accept(toMembership(rs)));
+    }
+
+    public Optional<OrganizationView> findOrganization(String organizationId) {
+        return jdbcTemplate.query(SELECT_ORGANIZATIONS + " WHERE organization_id = ?",
+                (rs, rowNum) -> toOrganization(rs), organizationId).stream().findFirst();
+    }
+
+    public List<MembershipRow> findMemberships(String organizationId) {
+        return jdbcTemplate.query(SELECT_MEMBERSHIPS + " WHERE organization_id = ?",
+                (rs, rowNum) -> toMembership(rs), organizationId);
+    }
+
+    private void stream(String sql, int fetchSize, RowCallbackHandler handler) {
+        // PostgreSQLはautoCommit無効時のみfetchSizeによるカーソル読み込みを行うため, 読み取り専用トランザクション内で実行する
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        handler.processRow(rs);
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static OrganizationView toOrganization(ResultSet rs) throws SQLException {
+        return new OrganizationView(
+                rs.getString("organization_id"),
+                rs.getString("owner_id"),
+                rs.getString("name"),
+                rs.getString("plan"),
+                rs.getString("site_url"),
+                rs.getTimestamp("created_at").toLocalDateTime()
+        );
+    }
+
+    private static MembershipRow toMembership(ResultSet rs) throws SQLException {
+        return new MembershipRow(
+                rs.getString("organization_user_id"),
+                rs.getString("organization_id"),
+                rs.getString("user_id"),
+                rs.getTimestamp("created_at").toLocalDateTime()
+        );
+    }
+
+    public record MembershipRow(String organizationUserId, String organizationId, String userId, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,71 @@
+package org.cresplanex.api.state.organizationservice.index;
+
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * インデックスから取得した所属を, データベース経由の場合と同じSortで並べ替え・シークする.
+ * カーソルの値も同じ文字列表現とするため, どちらの経路で発行したカーソルでも続きを取得できる.
+ * 名前はデータベースの照合順序で並ぶため, コードポイント順でしか比較できないここでは扱わない(名前のソートはデータベース経由とする).
+ */
+public class MembershipOrdering {
+
+    public static Comparator<Membership> comparator(Sort sort) {
+        Comparator<Membership> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Membership> next = Comparator.comparing(key(order.getProperty()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? (a, b) -> 0 : comparator;
+    }
+
+    /**
+     * カーソルに格納するソートキー値(CursorCodec#encodeAfterと同じ文字列表現).
+     */
+    public static List<String> values(Sort sort, Membership membership) {
+        return sort.stream()
+                .map(order -> String.valueOf(key(order.getProperty()).apply(membership)))
+                .toList();
+    }
+
+    /**
+     * ソート順でカーソルの行より後ろにあるかどうか.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static boolean isAfter(Sort sort, Membership membership, List<String> cursorValues) {
+        List<Sort.Order> orders = sort.toList();
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Comparable value = key(order.getProperty()).apply(membership);
+            Comparable cursor = parse(order.getProperty(), cursorValues.get(i));
+            int compared = value.compareTo(cursor);
+            if (compared != 0) {
+                return order.isAscending() ? compared > 0 : compared < 0;
+            }
+        }
+        return false;
+    }
+
+    private static Function<Membership, Comparable> key(String property) {
+        return switch (property) {
+            case "createdAt" -> Membership::addedAt;
+            case "organizationUserId" -> Membership::organizationUserId;
+            case "organization.createdAt" -> membership -> membership.organization().createdAt();
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+        };
+    }
+
+    private static Comparable<?> parse(String property, String value) {
+        return switch (property) {
+            case "createdAt", "organization.createdAt" -> LocalDateTime.parse(value);
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,511 @@
+package org.cresplanex.api.state.organizationservice.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationInvalidatedEvent;
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * ユーザーID → 所属組織のインメモリインデックス.
+ * 組織には連番(ordinal)を割り当て, ユーザーごとにordinalの昇順に並んだint配列と,
+ * 所属IDと所属日時(エポックマイクロ秒)の並行配列を保持する.
+ *
+ * 起動時にorganizations, organization_userをストリーミングで読み込んで構築し,
+ * 以降はOrganizationInvalidatedEvent(コミット済みの変更)を受けて該当組織の所属を再読込する.
+ * 構築と再読込は単一スレッドで順に実行するため, 構築中に発生した変更も構築後に反映される.
+ *
+ * 組織一覧の絞り込み用に, プラン・オーナーごとの組織ordinalのビットマップも保持する.
+ */
+@Slf4j
+@Component
+public class OrganizationMembershipIndex {
+
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final long[] EMPTY_LONGS = new long[0];
+    private static final String[] EMPTY_STRINGS = new String[0];
+
+    private final MembershipIndexRepository membershipIndexRepository;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final Timer buildTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> organizationOrdinals = new HashMap<>();
+    private final List<OrganizationView> organizations = new ArrayList<>();
+    private final Map<Integer, String[]> organizationMembers = new HashMap<>();
+    private final Map<String, UserMemberships> users = new HashMap<>();
+    private final Map<String, RoaringBitmap> organizationsByPlan = new HashMap<>();
+    private final Map<String, RoaringBitmap> organizationsByOwner = new HashMap<>();
+    private long membershipCount = 0;
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "membership-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready = false;
+
+    public OrganizationMembershipIndex(
+            MembershipIndexRepository membershipIndexRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.membership-index.enabled:false}") boolean enabled,
+            @Value("${app.membership-index.fetch-size:5000}") int fetchSize
+    ) {
+        this.membershipIndexRepository = membershipIndexRepository;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.buildTimer = Timer.builder("organization.membership.index.build")
+                .description("Time to build the membership index from the database")
+                .register(meterRegistry);
+        Gauge.builder("organization.membership.index.users", this, index -> index.read(() -> index.users.size()))
+                .register(meterRegistry);
+        Gauge.builder("organization.membership.index.memberships", this, index -> index.read(() -> index.membershipCount))
+                .register(meterRegistry);
+        Gauge.builder("organization.membership.index.organizations", this, index -> index.read(() -> index.organizationOrdinals.size()))
+                .register(meterRegistry);
+        Gauge.builder("organization.membership.index.memory", this, OrganizationMembershipIndex::estimateMemoryBytes)
+                .description("Estimated heap footprint of the membership index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * インデックスが構築済みで, 問い合わせに利用できるかどうか.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                buildTimer.record(this::load);
+                ready = true;
+                log.info("Membership index built: users={}, memberships={}", users.size(), membershipCount);
+            } catch (Exception e) {
+                log.error("Failed to build membership index, falling back to database queries", e);
+            }
+        });
+    }
+
+    @EventListener
+    public void onOrganizationInvalidated(OrganizationInvalidatedEvent event) {
+        if (!enabled || !pendingRefreshes.add(event.organizationId())) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            pendingRefreshes.remove(event.organizationId());
+            try {
+                refresh(event.organizationId());
+            } catch (Exception e) {
+                // 反映できない場合は古い内容を返し続けないよう, 再構築が完了するまでデータベースへの問い合わせに切り替える
+                ready = false;
+                log.error("Failed to refresh membership index for organization {}, rebuilding", event.organizationId(), e);
+                build();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * ユーザーの所属をすべて返す(順不同).
+     */
+    public List<Membership> findMemberships(String userId) {
+        return read(() -> {
+            UserMemberships memberships = users.get(userId);
+            if (memberships == null) {
+                return List.of();
+            }
+            List<Membership> result = new ArrayList<>(memberships.organizations.length);
+            for (int i = 0; i < memberships.organizations.length; i++) {
+                result.add(new Membership(
+                        memberships.organizationUserIds[i],
+                        userId,
+                        fromEpochMicros(memberships.addedAt[i]),
+                        organizations.get(memberships.organizations[i])));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * ユーザーが所属する組織のordinal(昇順). 所属がない場合は空配列.
+     */
+    public int[] organizationOrdinals(String userId) {
+        return read(() -> {
+            UserMemberships memberships = users.get(userId);
+            return memberships == null ? EMPTY_INTS : memberships.organizations.clone();
+        });
+    }
+
+    public Optional<OrganizationView> organization(int ordinal) {
+        return read(() -> Optional.ofNullable(ordinal < organizations.size() ? organizations.get(ordinal) : null));
+    }
+
+    /**
+     * 所属ユーザー・プラン・オーナーの条件に一致する組織を返す(順不同).
+     * 所属ユーザーはユーザーごとの組織ordinalのビットマップのOR(any)/AND(all)で求め,
+     * プラン・オーナーのビットマップとのANDで絞り込む.
+     * 無効な条件では絞り込まない(OrganizationSpecificationsと同じ).
+     */
+    public List<OrganizationView> findOrganizations(UsersFilter usersFilter, PlanFilter planFilter, OwnerFilter ownerFilter) {
+        return read(() -> {
+            RoaringBitmap matched = matchUsers(usersFilter);
+            if (planFilter != null && planFilter.isValid()) {
+                matched = and(matched, union(organizationsByPlan, planFilter.getPlans()));
+            }
+            if (ownerFilter != null && ownerFilter.isValid()) {
+                matched = and(matched, union(organizationsByOwner, ownerFilter.getOwnerIds()));
+            }
+
+            RoaringBitmap result = matched != null ? matched : allOrganizations();
+            List<OrganizationView> snapshots = new ArrayList<>(result.getCardinality());
+            result.forEach((int ordinal) -> snapshots.add(organizations.get(ordinal)));
+            return snapshots;
+        });
+    }
+
+    /**
+     * 所属ユーザー条件に一致する組織ordinal. 条件が無効な場合はnull(絞り込みなし).
+     */
+    private RoaringBitmap matchUsers(UsersFilter usersFilter) {
+        if (usersFilter == null || !usersFilter.isValid()
+                || usersFilter.getUserIds() == null || usersFilter.getUserIds().isEmpty()) {
+            return null;
+        }
+        List<RoaringBitmap> bitmaps = usersFilter.getUserIds().stream()
+                .distinct()
+                .map(this::userBitmap)
+                .toList();
+        if (usersFilter.isAny()) {
+            return RoaringBitmap.or(bitmaps.iterator());
+        }
+        // 所属の少ないユーザーから積をとり, 空になった時点で打ち切る
+        List<RoaringBitmap> ordered = new ArrayList<>(bitmaps);
+        ordered.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+        RoaringBitmap result = ordered.get(0).clone();
+        for (int i = 1; i < ordered.size() && !result.isEmpty(); i++) {
+            result.and(ordered.get(i));
+        }
+        return result;
+    }
+
+    private RoaringBitmap userBitmap(String userId) {
+        UserMemberships memberships = users.get(userId);
+        if (memberships == null) {
+            return new RoaringBitmap();
+        }
+        // organizationsは昇順のため, そのままコンテナ単位で追加できる
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.addN(memberships.organizations, 0, memberships.organizations.length);
+        return bitmap;
+    }
+
+    private RoaringBitmap allOrganizations() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int ordinal = 0; ordinal < organizations.size(); ordinal++) {
+            if (organizations.get(ordinal) != null) {
+                bitmap.add(ordinal);
+            }
+        }
+        return bitmap;
+    }
+
+    private static RoaringBitmap union(Map<String, RoaringBitmap> bitmaps, List<String> keys) {
+        RoaringBitmap result = new RoaringBitmap();
+        if (keys != null) {
+            keys.stream().distinct().map(bitmaps::get).filter(Objects::nonNull).forEach(result::or);
+        }
+        return result;
+    }
+
+    private static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+        if (left == null) {
+            return right;
+        }
+        left.and(right);
+        return left;
+    }
+
+    private void load() {
+        write(() -> {
+            organizationOrdinals.clear();
+            organizations.clear();
+            organizationMembers.clear();
+            users.clear();
+            organizationsByPlan.clear();
+            organizationsByOwner.clear();
+            membershipCount = 0;
+        });
+
+        membershipIndexRepository.forEachOrganization(fetchSize, organization ->
+                write(() -> putOrganization(organization)));
+
+        Map<Integer, List<String>> members = new HashMap<>();
+        membershipIndexRepository.forEachMembership(fetchSize, row -> write(() -> {
+            Integer ordinal = organizationOrdinals.get(row.organizationId());
+            if (ordinal == null) {
+                return;
+            }
+            putMembership(row, ordinal);
+            members.computeIfAbsent(ordinal, k -> new ArrayList<>()).add(row.userId());
+        }));
+        write(() -> members.forEach((ordinal, userIds) -> organizationMembers.put(ordinal, userIds.toArray(EMPTY_STRINGS))));
+    }
+
+    private void refresh(String organizationId) {
+        Optional<OrganizationView> organization = membershipIndexRepository.findOrganization(organizationId);
+        List<MembershipIndexRepository.MembershipRow> rows = organization.isPresent()
+                ? membershipIndexRepository.findMemberships(organizationId)
+                : List.of();
+
+        write(() -> {
+            Integer ordinal = organizationOrdinals.get(organizationId);
+            if (ordinal != null) {
+                for (String userId : organizationMembers.getOrDefault(ordinal, EMPTY_STRINGS)) {
+                    UserMemberships memberships = users.get(userId);
+                    if (memberships != null && memberships.remove(ordinal)) {
+                        membershipCount--;
+                        if (memberships.organizations.length == 0) {
+                            users.remove(userId);
+                        }
+                    }
+                }
+                organizationMembers.remove(ordinal);
+            }
+            if (organization.isEmpty()) {
+                if (ordinal != null) {
+                    // ordinalは再利用せず, 削除済みとしてnullを設定する
+                    unindexAttributes(ordinal, organizations.get(ordinal));
+                    organizations.set(ordinal, null);
+                    organizationOrdinals.remove(organizationId);
+                }
+                return;
+            }
+
+            int current = putOrganization(organization.get());
+            String[] userIds = new String[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                putMembership(rows.get(i), current);
+                userIds[i] = rows.get(i).userId();
+            }
+            organizationMembers.put(current, userIds);
+        });
+    }
+
+    private int putOrganization(OrganizationView organization) {
+        Integer ordinal = organizationOrdinals.get(organization.organizationId());
+        if (ordinal == null) {
+            ordinal = organizations.size();
+            organizations.add(organization);
+            organizationOrdinals.put(organization.organizationId(), ordinal);
+        } else {
+            unindexAttributes(ordinal, organizations.get(ordinal));
+            organizations.set(ordinal, organization);
+        }
+        organizationsByPlan.computeIfAbsent(organization.plan(), k -> new RoaringBitmap()).add(ordinal);
+        organizationsByOwner.computeIfAbsent(organization.ownerId(), k -> new RoaringBitmap()).add(ordinal);
+        return ordinal;
+    }
+
+    private void unindexAttributes(int ordinal, OrganizationView organization) {
+        if (organization == null) {
+            return;
+        }
+        remove(organizationsByPlan, organization.plan(), ordinal);
+        remove(organizationsByOwner, organization.ownerId(), ordinal);
+    }
+
+    private static void remove(Map<String, RoaringBitmap> bitmaps, String key, int ordinal) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.remove(ordinal);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private void putMembership(MembershipIndexRepository.MembershipRow row, int ordinal) {
+        UserMemberships memberships = users.computeIfAbsent(row.userId(), k -> new UserMemberships());
+        if (memberships.put(ordinal, row.organizationUserId(), toEpochMicros(row.createdAt()))) {
+            membershipCount++;
+        }
+    }
+
+    private double estimateMemoryBytes() {
+        return read(() -> {
+            // HashMapのエントリ(約48B) + キー文字列(約56B + 長さ) + 配列ヘッダ(16B x 3) + 要素(ordinal 4B, 日時 8B, 所属ID参照 4B + 文字列)
+            long bytes = 0;
+            for (Map.Entry<String, UserMemberships> entry : users.entrySet()) {
+                bytes += 48 + 56 + entry.getKey().length() + 16 + 3 * 16;
+                for (String organizationUserId : entry.getValue().organizationUserIds) {
+                    bytes += 4 + 8 + 4 + 56 + organizationUserId.length();
+                }
+            }
+            for (OrganizationView organization : organizations) {
+                if (organization != null) {
+                    bytes += 48 + 56 * 2 + 40 + organization.organizationId().length() * 2L
+                            + (organization.name() == null ? 0 : organization.name().length());
+                }
+            }
+            for (String[] members : organizationMembers.values()) {
+                bytes += 48 + 16 + members.length * 4L;
+            }
+            for (RoaringBitmap bitmap : organizationsByPlan.values()) {
+                bytes += 48 + bitmap.getLongSizeInBytes();
+            }
+            for (RoaringBitmap bitmap : organizationsByOwner.values()) {
+                bytes += 48 + bitmap.getLongSizeInBytes();
+            }
+            return (double) bytes;
+        });
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * ユーザー1人分の所属. organizationsは昇順で, 他の配列は同じ位置の値を持つ.
+     */
+    private static final class UserMemberships {
+        private int[] organizations = EMPTY_INTS;
+        private String[] organizationUserIds = EMPTY_STRINGS;
+        private long[] addedAt = EMPTY_LONGS;
+
+        /**
+         * @return 新規に追加した場合はtrue(既存の場合は値を置き換えてfalse)
+         */
+        boolean put(int organization, String organizationUserId, long at) {
+            int index = Arrays.binarySearch(organizations, organization);
+            if (index >= 0) {
+                organizationUserIds[index] = organizationUserId;
+                addedAt[index] = at;
+                return false;
+            }
+            int insertion = -index - 1;
+            organizations = insert(organizations, insertion, organization);
+            organizationUserIds = insert(organizationUserIds, insertion, organizationUserId);
+            addedAt = insert(addedAt, insertion, at);
+            return true;
+        }
+
+        boolean remove(int organization) {
+            int index = Arrays.binarySearch(organizations, organization);
+            if (index < 0) {
+                return false;
+            }
+            organizations = removeAt(organizations, index);
+            organizationUserIds = removeAt(organizationUserIds, index);
+            addedAt = removeAt(addedAt, index);
+            return true;
+        }
+
+        private static int[] insert(int[] array, int index, int value) {
+            int[] result = new int[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        private static long[] insert(long[] array, int index, long value) {
+            long[] result = new long[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        private static String[] insert(String[] array, int index, String value) {
+            String[] result = new String[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = value;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        private static int[] removeAt(int[] array, int index) {
+            int[] result = new int[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+            return result;
+        }
+
+        private static long[] removeAt(long[] array, int index) {
+            long[] result = new long[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+            return result;
+        }
+
+        private static String[] removeAt(String[] array, int index) {
+            String[] result = new String[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+            return result;
+        }
+    }
+}
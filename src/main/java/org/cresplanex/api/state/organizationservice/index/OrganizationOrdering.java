@@ -0,0 +1,68 @@
+package org.cresplanex.api.state.organizationservice.index;
+
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * インデックスから取得した組織を, データベース経由の場合と同じSortで並べ替え・シークする.
+ * カーソルの値はCursorCodec#encodeAfterと同じ文字列表現とする.
+ * 名前のソートは扱わない(MembershipOrderingと同様).
+ */
+public class OrganizationOrdering {
+
+    public static Comparator<OrganizationView> comparator(Sort sort) {
+        Comparator<OrganizationView> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<OrganizationView> next = Comparator.comparing(key(order.getProperty()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? (a, b) -> 0 : comparator;
+    }
+
+    public static List<String> values(Sort sort, OrganizationView organization) {
+        return sort.stream()
+                .map(order -> String.valueOf(key(order.getProperty()).apply(organization)))
+                .toList();
+    }
+
+    /**
+     * ソート順でカーソルの行より後ろにあるかどうか.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static boolean isAfter(Sort sort, OrganizationView organization, List<String> cursorValues) {
+        List<Sort.Order> orders = sort.toList();
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            Comparable value = key(order.getProperty()).apply(organization);
+            Comparable cursor = parse(order.getProperty(), cursorValues.get(i));
+            int compared = value.compareTo(cursor);
+            if (compared != 0) {
+                return order.isAscending() ? compared > 0 : compared < 0;
+            }
+        }
+        return false;
+    }
+
+    private static Function<OrganizationView, Comparable> key(String property) {
+        return switch (property) {
+            case "createdAt" -> OrganizationView::createdAt;
+            case "organizationId" -> OrganizationView::organizationId;
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+        };
+    }
+
+    private static Comparable<?> parse(String property, String value) {
+        return switch (property) {
+            case "createdAt" -> LocalDateTime.parse(value);
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package org.cresplanex.api.state.organizationservice.interceptor;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.cresplanex.api.state.organizationservice.enums.CountMode;
+import org.cresplanex.api.state.organizationservice.enums.ReadConsistency;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * リクエストヘッダーからハンドラで利用するオプションを取り出すインターセプター.
+ * リクエストメッセージの定義を変更せずに, 件数取得モードや所属ユーザーのページングなどを指定できるようにする.
+ */
+@Slf4j
+@GrpcGlobalServerInterceptor
+public class RequestMetadataInterceptor implements ServerInterceptor {
+
+    public static final Metadata.Key<String> COUNT_MODE_KEY =
+            Metadata.Key.of("x-count-mode", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Metadata.Key<String> MEMBER_LIMIT_KEY =
+            Metadata.Key.of("x-member-limit", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Metadata.Key<String> MEMBER_CURSOR_KEY =
+            Metadata.Key.of("x-member-cursor", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Metadata.Key<String> READ_CONSISTENCY_KEY =
+            Metadata.Key.of("x-read-consistency", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final Context.Key<CountMode> COUNT_MODE_CONTEXT_KEY = Context.keyWithDefault("count-mode", CountMode.EXACT);
+    private static final Context.Key<Integer> MEMBER_LIMIT_CONTEXT_KEY = Context.keyWithDefault("member-limit", 0);
+    private static final Context.Key<String> MEMBER_CURSOR_CONTEXT_KEY = Context.key("member-cursor");
+    private static final Context.Key<ReadConsistency> READ_CONSISTENCY_CONTEXT_KEY =
+            Context.keyWithDefault("read-consistency", ReadConsistency.EVENTUAL);
+
+    private final CountMode defaultCountMode;
+
+    public RequestMetadataInterceptor(@Value("${app.count.default-mode:EXACT}") CountMode defaultCountMode) {
+        this.defaultCountMode = defaultCountMode;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        Context context = Context.current()
+                .withValue(COUNT_MODE_CONTEXT_KEY, resolveCountMode(headers.get(COUNT_MODE_KEY)))
+                .withValue(MEMBER_LIMIT_CONTEXT_KEY, resolveMemberLimit(headers.get(MEMBER_LIMIT_KEY)))
+                .withValue(MEMBER_CURSOR_CONTEXT_KEY, headers.get(MEMBER_CURSOR_KEY))
+                .withValue(READ_CONSISTENCY_CONTEXT_KEY, resolveReadConsistency(headers.get(READ_CONSISTENCY_KEY)));
+        return Contexts.interceptCall(context, call, headers, next);
+    }
+
+    /**
+     * 現在のリクエストで指定された件数取得モード.
+     */
+    public static CountMode countMode() {
+        return COUNT_MODE_CONTEXT_KEY.get();
+    }
+
+    /**
+     * 現在のリクエストで指定された, 組織とともに返す所属ユーザーの最大件数(未指定の場合は0).
+     */
+    public static int memberLimit() {
+        return MEMBER_LIMIT_CONTEXT_KEY.get();
+    }
+
+    /**
+     * 現在のリクエストで指定された, 所属ユーザーの続きを取得するためのカーソル(未指定の場合はnull).
+     */
+    public static String memberCursor() {
+        return MEMBER_CURSOR_CONTEXT_KEY.get();
+    }
+
+    /**
+     * 現在のリクエストで指定された読み込みの一貫性.
+     * STRONGの場合, 読み取り専用トランザクションもレプリカではなくプライマリで実行する.
+     */
+    public static ReadConsistency readConsistency() {
+        return READ_CONSISTENCY_CONTEXT_KEY.get();
+    }
+
+    private ReadConsistency resolveReadConsistency(String value) {
+        if (value == null || value.isEmpty()) {
+            return ReadConsistency.EVENTUAL;
+        }
+        try {
+            return ReadConsistency.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.debug("Unknown read consistency: {}", value);
+            return ReadConsistency.EVENTUAL;
+        }
+    }
+
+    private int resolveMemberLimit(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(Integer.parseInt(value), 0);
+        } catch (NumberFormatException e) {
+            log.debug("Invalid member limit: {}", value);
+            return 0;
+        }
+    }
+
+    private CountMode resolveCountMode(String value) {
+        if (value == null || value.isEmpty()) {
+            return defaultCountMode;
+        }
+        try {
+            return CountMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.debug("Unknown count mode: {}", value);
+            return defaultCountMode;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.cresplanex.api.state.organizationservice.interceptor;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+
+import java.util.List;
+
+/**
+ * ハンドラからレスポンスのトレーラーにメタデータを付与するためのインターセプター.
+ * レスポンスメッセージの定義を変更せずに, 次ページカーソルなどの付加情報を返却する.
+ */
+@GrpcGlobalServerInterceptor
+public class ResponseMetadataInterceptor implements ServerInterceptor {
+
+    public static final Metadata.Key<String> NEXT_CURSOR_KEY =
+            Metadata.Key.of("x-next-cursor", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Metadata.Key<String> JOB_IDS_KEY =
+            Metadata.Key.of("x-job-ids", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Metadata.Key<String> MEMBER_COUNT_KEY =
+            Metadata.Key.of("x-member-count", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Metadata.Key<String> MEMBER_NEXT_CURSOR_KEY =
+            Metadata.Key.of("x-member-next-cursor", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final Context.Key<Metadata> TRAILERS_KEY = Context.key("response-trailers");
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next
+    ) {
+        Metadata trailers = new Metadata();
+        Context context = Context.current().withValue(TRAILERS_KEY, trailers);
+        ServerCall<ReqT, RespT> forwardingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata responseTrailers) {
+                synchronized (trailers) {
+                    responseTrailers.merge(trailers);
+                }
+                super.close(status, responseTrailers);
+            }
+        };
+        return Contexts.interceptCall(context, forwardingCall, headers, next);
+    }
+
+    /**
+     * 現在のリクエストのレスポンストレーラーに値を設定する.
+     * 値がnullの場合は何もしない.
+     */
+    public static <T> void put(Metadata.Key<T> key, T value) {
+        Metadata trailers = TRAILERS_KEY.get();
+        if (trailers == null || value == null) {
+            return;
+        }
+        synchronized (trailers) {
+            trailers.discardAll(key);
+            trailers.put(key, value);
+        }
+    }
+
+    public static void putNextCursor(String nextCursor) {
+        put(NEXT_CURSOR_KEY, nextCursor);
+    }
+
+    /**
+     * 組織とともに返した所属ユーザーの総数と, 続きを取得するためのカーソルを設定する.
+     */
+    public static void putMemberPage(int count, String nextCursor) {
+        put(MEMBER_COUNT_KEY, String.valueOf(count));
+        put(MEMBER_NEXT_CURSOR_KEY, nextCursor);
+    }
+
+    /**
+     * ジョブが複数に分割された場合に, すべてのジョブIDをカンマ区切りで設定する.
+     */
+    public static void putJobIds(List<String> jobIds) {
+        if (jobIds == null || jobIds.size() <= 1) {
+            return;
+        }
+        put(JOB_IDS_KEY, String.join(",", jobIds));
+    }
+}
@@ -23,7 +23,6 @@ public class DtoMapper {
     public static UserOnOrganizationDto convert(OrganizationUserEntity organizationUserEntity) {
         return UserOnOrganizationDto.builder()
                 .userOrganizationId(organizationUserEntity.getOrganizationUserId())
-                .userOrganizationId(organizationUserEntity.getOrganizationId())
                 .userId(organizationUserEntity.getUserId())
                 .build();
     }
@@ -7,6 +7,10 @@ import build.buf.gen.organization.v1.UserOnOrganization;
 import org.cresplanex.api.state.common.utils.ValueFromNullable;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationWithUsersPage;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationUserView;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationWithUsersQueryRepository.OrganizationWithUsersRow;
 
 import java.util.List;
 
@@ -54,4 +58,46 @@ public class ProtoMapper {
                 .addAllUsers(convert(organizationEntity.getOrganizationUsers()))
                 .build();
     }
+
+    public static OrganizationWithUsers convertWithUsers(OrganizationWithUsersRow row) {
+        OrganizationWithUsers.Builder builder = OrganizationWithUsers.newBuilder()
+                .setOrganization(Organization.newBuilder()
+                        .setOrganizationId(row.organizationId())
+                        .setOwnerId(row.ownerId())
+                        .setName(row.name())
+                        .setPlan(row.plan())
+                        .setSiteUrl(ValueFromNullable.toNullableString(row.siteUrl()))
+                        .build());
+        row.userIds().forEach(userId -> builder.addUsers(UserOnOrganization.newBuilder().setUserId(userId).build()));
+        return builder.build();
+    }
+
+    public static OrganizationWithUsers convertWithUsers(OrganizationWithUsersPage organizationWithUsersPage) {
+        OrganizationWithUsers.Builder builder = OrganizationWithUsers.newBuilder()
+                .setOrganization(convert(organizationWithUsersPage.getOrganization()));
+        organizationWithUsersPage.getUsers().getData().forEach(user -> builder.addUsers(convert(user)));
+        return builder.build();
+    }
+
+    public static Organization convert(OrganizationView organizationView) {
+        return Organization.newBuilder()
+                .setOrganizationId(organizationView.organizationId())
+                .setOwnerId(organizationView.ownerId())
+                .setName(organizationView.name())
+                .setPlan(organizationView.plan())
+                .setSiteUrl(ValueFromNullable.toNullableString(organizationView.siteUrl()))
+                .build();
+    }
+
+    public static UserOnOrganization convert(OrganizationUserView userOnOrganizationView) {
+        return UserOnOrganization.newBuilder()
+                .setUserId(userOnOrganizationView.userId())
+                .build();
+    }
+
+    public static OrganizationOnUser convertOnUser(OrganizationUserView organizationUserView) {
+        return OrganizationOnUser.newBuilder()
+                .setOrganization(convert(organizationUserView.organization()))
+                .build();
+    }
 }
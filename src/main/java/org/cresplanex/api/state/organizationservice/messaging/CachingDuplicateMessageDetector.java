@@ -0,0 +1,107 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.cresplanex.core.messaging.consumer.SubscriberIdAndMessage;
+import org.cresplanex.core.messaging.consumer.duplicate.DuplicateMessageDetector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 処理済みの(サブスクライバーID, メッセージID)をメモリに保持し, 既知の重複はデータベースへの問い合わせなしに破棄する.
+ * 未知のメッセージはdelegate(PublishTimeDuplicateMessageDetector)で, ハンドラと同じトランザクション内に記録する.
+ * メモリには, 記録がコミットされたもの(またはデータベースで重複と判定されたもの)のみを登録するため,
+ * 誤って未処理のメッセージを重複とすることはなく, 再起動やリバランス後もデータベースの記録により重複が検知される.
+ * 自サービス宛てのメッセージはプロセス内配送とKafkaの2経路で届くため, 2回目の配送はメモリで破棄される.
+ */
+public class CachingDuplicateMessageDetector implements DuplicateMessageDetector {
+
+    private final DuplicateMessageDetector delegate;
+    private final Cache<String, Boolean> processed;
+    private final Counter memoryHits;
+    private final Counter databaseDuplicates;
+    private final Counter processedMessages;
+
+    public CachingDuplicateMessageDetector(
+            DuplicateMessageDetector delegate,
+            long maximumSize,
+            Duration ttl,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.processed = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.memoryHits = Counter.builder("messaging.duplicate.detection")
+                .tag("result", "memory_duplicate")
+                .register(meterRegistry);
+        this.databaseDuplicates = Counter.builder("messaging.duplicate.detection")
+                .tag("result", "database_duplicate")
+                .register(meterRegistry);
+        this.processedMessages = Counter.builder("messaging.duplicate.detection")
+                .tag("result", "processed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isDuplicate(String consumerId, String messageId) {
+        String key = key(consumerId, messageId);
+        if (processed.getIfPresent(key) != null) {
+            memoryHits.increment();
+            return true;
+        }
+        boolean duplicate = delegate.isDuplicate(consumerId, messageId);
+        if (duplicate) {
+            databaseDuplicates.increment();
+            processed.put(key, Boolean.TRUE);
+        } else {
+            rememberAfterCommit(key);
+        }
+        return duplicate;
+    }
+
+    @Override
+    public void doWithMessage(SubscriberIdAndMessage subscriberIdAndMessage, Runnable callback) {
+        String key = key(subscriberIdAndMessage.getSubscriberId(), subscriberIdAndMessage.getMessage().getId());
+        if (processed.getIfPresent(key) != null) {
+            memoryHits.increment();
+            return;
+        }
+
+        boolean[] handled = {false};
+        delegate.doWithMessage(subscriberIdAndMessage, () -> {
+            handled[0] = true;
+            callback.run();
+            rememberAfterCommit(key);
+        });
+        // delegateがハンドラを呼び出さずに正常終了した場合は, データベースに記録済み(重複)
+        if (!handled[0]) {
+            databaseDuplicates.increment();
+            processed.put(key, Boolean.TRUE);
+        }
+    }
+
+    private void rememberAfterCommit(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            processedMessages.increment();
+            processed.put(key, Boolean.TRUE);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                processedMessages.increment();
+                processed.put(key, Boolean.TRUE);
+            }
+        });
+    }
+
+    private static String key(String subscriberId, String messageId) {
+        return subscriberId + "\n" + messageId;
+    }
+}
@@ -0,0 +1,34 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import org.apache.kafka.common.TopicPartition;
+import org.cresplanex.core.common.kafka.consumer.swimlanemap.TopicPartitionToSwimlaneMapping;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * パーティションごとに複数のスイムレーンを割り当て, メッセージのキー(集約ID, 組織IDなど)のハッシュで振り分ける.
+ * 同じキーのメッセージは同じスイムレーンで到着順に処理されるため, 組織ごとの順序を保ったまま, 異なる組織のメッセージを並列に処理できる.
+ * オフセットはパーティション単位で, 処理が完了した連続する位置までがコミットされる(CoreKafkaMessageConsumer).
+ */
+public class HashingTopicPartitionToSwimlaneMapping implements TopicPartitionToSwimlaneMapping {
+
+    private final SwimlaneQueueDepthTracker swimlaneQueueDepthTracker;
+    private final ConcurrentMap<TopicPartition, Integer> firstSwimlanes = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSwimlane = new AtomicInteger();
+
+    public HashingTopicPartitionToSwimlaneMapping(SwimlaneQueueDepthTracker swimlaneQueueDepthTracker) {
+        this.swimlaneQueueDepthTracker = swimlaneQueueDepthTracker;
+    }
+
+    @Override
+    public Integer toSwimlane(TopicPartition topicPartition, String messageKey) {
+        int lanes = swimlaneQueueDepthTracker.swimlanesPerPartition();
+        // パーティションごとに重ならないスイムレーン番号の範囲を割り当てる(リバランス後も同じ範囲を使う)
+        int first = firstSwimlanes.computeIfAbsent(topicPartition, k -> nextSwimlane.getAndAdd(lanes));
+        int lane = swimlaneQueueDepthTracker.laneOf(messageKey);
+        swimlaneQueueDepthTracker.enqueued(topicPartition, messageKey, lane);
+        return first + lane;
+    }
+}
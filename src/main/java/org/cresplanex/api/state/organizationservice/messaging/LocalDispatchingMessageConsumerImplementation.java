@@ -0,0 +1,58 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import org.cresplanex.api.state.organizationservice.datasource.WorkloadRouting;
+import org.cresplanex.core.messaging.consumer.MessageConsumerImplementation;
+import org.cresplanex.core.messaging.consumer.MessageHandler;
+import org.cresplanex.core.messaging.consumer.MessageSubscription;
+
+import java.util.Set;
+
+/**
+ * Kafkaへの購読に加えて, 購読したハンドラをプロセス内配送用に登録する.
+ * いずれの経路でも, ハンドラはメッセージ処理用のコネクションプール(WorkloadRouting)で実行する.
+ * 購読中のサブスクライバーIDは, 受信済みメッセージの削除判定のためSubscriptionRegistryに登録する.
+ */
+public class LocalDispatchingMessageConsumerImplementation implements MessageConsumerImplementation {
+
+    private final MessageConsumerImplementation delegate;
+    private final LocalMessageDispatcher localMessageDispatcher;
+    private final SubscriptionRegistry subscriptionRegistry;
+
+    public LocalDispatchingMessageConsumerImplementation(
+            MessageConsumerImplementation delegate,
+            LocalMessageDispatcher localMessageDispatcher,
+            SubscriptionRegistry subscriptionRegistry
+    ) {
+        this.delegate = delegate;
+        this.localMessageDispatcher = localMessageDispatcher;
+        this.subscriptionRegistry = subscriptionRegistry;
+    }
+
+    @Override
+    public MessageSubscription subscribe(String subscriberId, Set<String> channels, MessageHandler handler) {
+        // メッセージの処理中はメッセージ処理用のコネクションプールを使用する
+        MessageHandler routed = message -> WorkloadRouting.onMessaging(() -> handler.accept(message));
+        MessageHandler fromKafka = message -> {
+            routed.accept(message);
+            localMessageDispatcher.brokerHandled(routed, message);
+        };
+        MessageSubscription subscription = delegate.subscribe(subscriberId, channels, fromKafka);
+        localMessageDispatcher.register(channels, routed);
+        subscriptionRegistry.register(subscriberId);
+        return () -> {
+            subscriptionRegistry.unregister(subscriberId);
+            localMessageDispatcher.unregister(channels, routed);
+            subscription.unsubscribe();
+        };
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
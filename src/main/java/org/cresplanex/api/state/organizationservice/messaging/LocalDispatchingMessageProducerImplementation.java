@@ -0,0 +1,37 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.producer.MessageProducerImplementation;
+
+/**
+ * Outboxへの書き込みに加えて, 自サービス宛てのメッセージをコミット後にプロセス内で配送する.
+ */
+public class LocalDispatchingMessageProducerImplementation implements MessageProducerImplementation {
+
+    private final MessageProducerImplementation delegate;
+    private final LocalMessageDispatcher localMessageDispatcher;
+
+    public LocalDispatchingMessageProducerImplementation(
+            MessageProducerImplementation delegate,
+            LocalMessageDispatcher localMessageDispatcher
+    ) {
+        this.delegate = delegate;
+        this.localMessageDispatcher = localMessageDispatcher;
+    }
+
+    @Override
+    public void send(Message message) {
+        delegate.send(message);
+        localMessageDispatcher.dispatchIfLocal(message);
+    }
+
+    @Override
+    public void setMessageIdIfNecessary(Message message) {
+        delegate.setMessageIdIfNecessary(message);
+    }
+
+    @Override
+    public void withContext(Runnable runnable) {
+        delegate.withContext(runnable);
+    }
+}
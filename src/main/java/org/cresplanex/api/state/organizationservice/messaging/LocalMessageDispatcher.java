@@ -0,0 +1,156 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.consumer.MessageHandler;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 自サービスが購読しているチャネル宛てのメッセージを, Kafkaを経由せずにプロセス内で配送する.
+ * メッセージ自体はこれまで通りOutboxに書き込まれるため, プロセス内配送が失敗した場合もKafka経由で処理される.
+ * プロセス内で処理済みのメッセージは, Kafka経由で届いた際に重複検知(DuplicateMessageDetector)で破棄される.
+ * <p>
+ * 配送はキー(PARTITION_IDまたはメッセージID)のハッシュで選んだレーンで直列に行い, 同じキーのメッセージの順序を保つ.
+ * あるハンドラでキーのプロセス内配送が失敗した場合, そのハンドラには同じキーの以降のメッセージもKafka経由に回し,
+ * Kafka経由で最後に回したメッセージの処理が完了するまでプロセス内では配送しない.
+ * Kafka経由のメッセージは他のインスタンスで処理されることもあるため, 完了を待つのはbrokerOnlyTtlまでとする.
+ * コミット後に配送を受け付けられなかった場合も, 呼び出し元には伝えずKafka経由に回す.
+ */
+@Slf4j
+public class LocalMessageDispatcher {
+
+    private final Map<String, List<MessageHandler>> handlers = new ConcurrentHashMap<>();
+    private final List<ThreadPoolTaskExecutor> lanes;
+    // ハンドラごとに, Kafka経由に回したキーと, そのキーで最後に回したメッセージID
+    private final Map<MessageHandler, Cache<String, String>> brokerOnlyKeys = new ConcurrentHashMap<>();
+    private final Set<String> allowedChannels;
+    private final Duration brokerOnlyTtl;
+    private final boolean enabled;
+
+    /**
+     * @param lanes 配送を行うレーン(それぞれ単一スレッド)
+     * @param allowedChannels プロセス内配送の対象とするチャネル(空の場合は購読しているすべてのチャネル)
+     * @param brokerOnlyTtl Kafka経由に回したキーのプロセス内配送を止める最大の期間(Kafka経由の再配送にかかる時間以上とする)
+     * @param enabled プロセス内配送を行うかどうか
+     */
+    public LocalMessageDispatcher(List<ThreadPoolTaskExecutor> lanes, Set<String> allowedChannels, Duration brokerOnlyTtl,
+            boolean enabled) {
+        this.lanes = lanes;
+        this.allowedChannels = allowedChannels;
+        this.brokerOnlyTtl = brokerOnlyTtl;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 購読時に, デコレート済み(重複検知・ロック・リプライ送信を含む)のハンドラを登録する.
+     */
+    public void register(Set<String> channels, MessageHandler handler) {
+        channels.forEach(channel -> handlers.computeIfAbsent(channel, k -> new CopyOnWriteArrayList<>()).add(handler));
+    }
+
+    public void unregister(Set<String> channels, MessageHandler handler) {
+        channels.forEach(channel -> handlers.computeIfPresent(channel, (k, list) -> {
+            list.remove(handler);
+            return list.isEmpty() ? null : list;
+        }));
+        brokerOnlyKeys.remove(handler);
+    }
+
+    /**
+     * プロセス内配送の対象であれば, トランザクションのコミット後に配送を予約する.
+     *
+     * @return 配送を予約した場合はtrue
+     */
+    public boolean dispatchIfLocal(Message message) {
+        if (!enabled || message.getId() == null) {
+            return false;
+        }
+        Optional<String> destination = message.getHeader(Message.DESTINATION);
+        if (destination.isEmpty()
+                || (!allowedChannels.isEmpty() && !allowedChannels.contains(destination.get()))) {
+            return false;
+        }
+        List<MessageHandler> targets = handlers.get(destination.get());
+        if (targets == null || targets.isEmpty()) {
+            return false;
+        }
+
+        String key = SwimlaneQueueDepthTracker.messageKey(message);
+        Runnable dispatch = () -> {
+            try {
+                lanes.get(Math.floorMod(key.hashCode(), lanes.size())).execute(() -> deliver(key, message, targets));
+            } catch (TaskRejectedException e) {
+                // コミット後のため呼び出し元には伝えず, Kafka経由の配送に任せる
+                targets.forEach(handler -> divert(handler, key, message));
+                log.warn("Local dispatch rejected, falling back to broker: id={}, destination={}",
+                        message.getId(), destination.get(), e);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch.run();
+                }
+            });
+        } else {
+            dispatch.run();
+        }
+        return true;
+    }
+
+    /**
+     * ハンドラがKafka経由で届いたメッセージの処理を完了した.
+     * そのハンドラとキーで最後にKafka経由に回したメッセージであれば, 以降はプロセス内配送を再開する.
+     */
+    public void brokerHandled(MessageHandler handler, Message message) {
+        Cache<String, String> keys = brokerOnlyKeys.get(handler);
+        if (keys != null && message.getId() != null) {
+            keys.asMap().remove(SwimlaneQueueDepthTracker.messageKey(message), message.getId());
+        }
+    }
+
+    public void shutdown() {
+        lanes.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    private void deliver(String key, Message message, List<MessageHandler> targets) {
+        for (MessageHandler handler : targets) {
+            Cache<String, String> keys = brokerOnlyKeys.get(handler);
+            if (keys != null && keys.getIfPresent(key) != null) {
+                // 先行するメッセージがKafka経由で処理待ちのため, 追い越さないようにKafka経由に回す
+                divert(handler, key, message);
+                continue;
+            }
+            try {
+                handler.accept(message);
+            } catch (Exception e) {
+                // Outbox経由で再配送されるため, ここではログのみ
+                divert(handler, key, message);
+                log.warn("Local dispatch failed, falling back to broker: id={}, destination={}",
+                        message.getId(), message.getHeader(Message.DESTINATION).orElse(null), e);
+            }
+        }
+    }
+
+    private void divert(MessageHandler handler, String key, Message message) {
+        brokerOnlyKeys.computeIfAbsent(handler, k -> Caffeine.newBuilder()
+                        .expireAfterWrite(brokerOnlyTtl)
+                        .<String, String>build())
+                .put(key, message.getId());
+    }
+}
@@ -0,0 +1,18 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+/**
+ * 受信メッセージを同時に処理するスレッド数. 各スレッドは処理中にmessagingプールのコネクションを1つ使用する.
+ *
+ * @param swimlanesPerPartition パーティションあたりのスイムレーン数
+ * @param maxAssignedPartitions 1インスタンスに割り当てられる(データベースを使用する購読の)パーティション数の上限
+ * @param localDispatchLanes プロセス内配送のレーン数(無効な場合は0)
+ */
+public record MessagingConcurrency(int swimlanesPerPartition, int maxAssignedPartitions, int localDispatchLanes) {
+
+    /**
+     * 同時に処理するスレッド数の上限(messagingプールに必要なコネクション数).
+     */
+    public int connections() {
+        return swimlanesPerPartition * maxAssignedPartitions + localDispatchLanes;
+    }
+}
@@ -0,0 +1,141 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.cresplanex.core.common.jdbc.OutboxPartitionValues;
+import org.cresplanex.core.common.jdbc.OutboxPartitioningSpec;
+import org.cresplanex.core.messaging.common.Message;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outbox(messageテーブル)へ複数のメッセージをunnestによる複数行INSERTで書き込む(1件の場合は単一行のINSERT).
+ * 書き込み先のテーブル(message, message0 ... message{N-1})とmessage_partitionは,
+ * MessageProducerJdbcImplementation(CoreCommonJdbcOperations)と同じOutboxPartitioningSpecで宛先とPARTITION_IDヘッダーから決め,
+ * テーブルごとに1文とする. 一括書き込みの有無に関わらず同じキーのメッセージは同じテーブルに入るため, テーブルごとのCDCでもキー単位の順序が保たれる.
+ * 行は引数の順序で挿入されるため, CDCが読み取るWAL上の順序もこれに従う.
+ * IDはアプリケーションで採番済み(ヘッダーのID)であること.
+ */
+public class OutboxMessageWriter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CoreSchema coreSchema;
+    private final String currentTimeInMillisecondsExpression;
+    private final OutboxPartitioningSpec outboxPartitioningSpec;
+    private final Map<String, String> insertSqls = new ConcurrentHashMap<>();
+    private final Map<String, String> singleInsertSqls = new ConcurrentHashMap<>();
+
+    /**
+     * @param jdbcTemplate JdbcTemplate(ドメインの更新と同じトランザクションで書き込むため, アプリケーションのDataSourceを使用すること)
+     * @param coreSchema Outboxのスキーマ
+     * @param currentTimeInMillisecondsExpression creation_timeに設定する現在時刻(ミリ秒)のSQL式
+     * @param outboxPartitioningSpec Outboxの分割(CoreCommonJdbcOperationsと同じものを使用すること)
+     */
+    public OutboxMessageWriter(
+            JdbcTemplate jdbcTemplate,
+            CoreSchema coreSchema,
+            String currentTimeInMillisecondsExpression,
+            OutboxPartitioningSpec outboxPartitioningSpec
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.coreSchema = coreSchema;
+        this.currentTimeInMillisecondsExpression = currentTimeInMillisecondsExpression;
+        this.outboxPartitioningSpec = outboxPartitioningSpec;
+    }
+
+    public void insert(List<Message> messages) {
+        Map<String, List<PartitionedMessage>> partitioned = new TreeMap<>();
+        for (Message message : messages) {
+            OutboxPartitionValues values = partitionValues(message);
+            partitioned.computeIfAbsent(table(values), k -> new ArrayList<>())
+                    .add(new PartitionedMessage(message, values.messagePartition));
+        }
+        partitioned.forEach((table, tableMessages) -> insert(insertSql(table), tableMessages));
+    }
+
+    /**
+     * 1件のメッセージを配列を介さずに書き込む.
+     */
+    public void insert(Message message) {
+        OutboxPartitionValues values = partitionValues(message);
+        jdbcTemplate.update(singleInsertSql(table(values)),
+                message.getRequiredHeader(Message.ID),
+                message.getRequiredHeader(Message.DESTINATION),
+                toJson(message),
+                message.getPayload(),
+                values.messagePartition);
+    }
+
+    private OutboxPartitionValues partitionValues(Message message) {
+        return outboxPartitioningSpec.outboxTableValues(
+                message.getRequiredHeader(Message.DESTINATION),
+                message.getHeader(Message.PARTITION_ID).orElse(null));
+    }
+
+    private static String table(OutboxPartitionValues values) {
+        return "message" + values.outboxTableSuffix.suffixAsString;
+    }
+
+    private String singleInsertSql(String table) {
+        return singleInsertSqls.computeIfAbsent(table, t -> """
+                INSERT INTO %s (id, destination, headers, payload, creation_time, published, message_partition)
+                VALUES (?, ?, ?, ?, %s, 0, ?::smallint)
+                """.formatted(coreSchema.qualifyTable(t), currentTimeInMillisecondsExpression));
+    }
+
+    private String insertSql(String table) {
+        return insertSqls.computeIfAbsent(table, t -> """
+                INSERT INTO %s (id, destination, headers, payload, creation_time, published, message_partition)
+                SELECT t.id, t.destination, t.headers, t.payload, %s, 0, t.message_partition
+                FROM unnest(?::varchar[], ?::text[], ?::text[], ?::text[], ?::smallint[])
+                    WITH ORDINALITY AS t(id, destination, headers, payload, message_partition, ord)
+                ORDER BY t.ord
+                """.formatted(coreSchema.qualifyTable(t), currentTimeInMillisecondsExpression));
+    }
+
+    private void insert(String sql, List<PartitionedMessage> messages) {
+        String[] ids = new String[messages.size()];
+        String[] destinations = new String[messages.size()];
+        String[] headers = new String[messages.size()];
+        String[] payloads = new String[messages.size()];
+        Integer[] messagePartitions = new Integer[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i).message();
+            ids[i] = message.getRequiredHeader(Message.ID);
+            destinations[i] = message.getRequiredHeader(Message.DESTINATION);
+            headers[i] = toJson(message);
+            payloads[i] = message.getPayload();
+            messagePartitions[i] = messages.get(i).messagePartition();
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("varchar", ids));
+            ps.setArray(2, connection.createArrayOf("text", destinations));
+            ps.setArray(3, connection.createArrayOf("text", headers));
+            ps.setArray(4, connection.createArrayOf("text", payloads));
+            ps.setArray(5, connection.createArrayOf("int4", messagePartitions));
+            return ps;
+        });
+    }
+
+    private static String toJson(Message message) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(message.getHeaders());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize message headers", e);
+        }
+    }
+
+    private record PartitionedMessage(Message message, Integer messagePartition) {
+    }
+}
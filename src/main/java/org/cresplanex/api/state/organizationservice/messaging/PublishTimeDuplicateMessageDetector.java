@@ -0,0 +1,63 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.cresplanex.core.messaging.consumer.SubscriberIdAndMessage;
+import org.cresplanex.core.messaging.consumer.duplicate.DuplicateMessageDetector;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 受信済みメッセージ(received_messages)に(サブスクライバーID, メッセージID)を記録し, 記録済みであれば重複とする.
+ * SqlTableBasedDuplicateMessageDetectorと異なり, creation_timeには受信時刻ではなくメッセージIDが表す発行時刻(message_id_time)を書き込む.
+ * 同じメッセージは常に同じパーティション・同じ主キー(consumer_id, message_id, creation_time)となるため,
+ * creation_timeで分割したテーブルでも, パーティションごとの主キーのみで重複を検知できる.
+ * IDから発行時刻が得られない場合は受信時刻とし, テーブルのトリガーが全パーティションを確認する.
+ */
+public class PublishTimeDuplicateMessageDetector implements DuplicateMessageDetector {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String insertSql;
+
+    /**
+     * @param jdbcTemplate JdbcTemplate(ハンドラと同じトランザクションで記録するため, アプリケーションのDataSourceを使用すること)
+     * @param transactionTemplate 記録とハンドラの呼び出しを囲むトランザクション
+     * @param coreSchema 受信済みメッセージのスキーマ
+     * @param currentTimeInMillisecondsExpression IDから発行時刻が得られない場合にcreation_timeに設定する現在時刻(ミリ秒)のSQL式
+     */
+    public PublishTimeDuplicateMessageDetector(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            CoreSchema coreSchema,
+            String currentTimeInMillisecondsExpression
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.insertSql = """
+                INSERT INTO %s (consumer_id, message_id, creation_time)
+                VALUES (?, ?, COALESCE(%s(?), %s))
+                ON CONFLICT DO NOTHING
+                """.formatted(coreSchema.qualifyTable("received_messages"), coreSchema.qualifyTable("message_id_time"),
+                currentTimeInMillisecondsExpression);
+    }
+
+    @Override
+    public boolean isDuplicate(String consumerId, String messageId) {
+        try {
+            return jdbcTemplate.update(insertSql, consumerId, messageId, messageId) == 0;
+        } catch (DuplicateKeyException e) {
+            // トリガーが他のパーティションで記録済みのメッセージを検知した場合
+            return true;
+        }
+    }
+
+    @Override
+    public void doWithMessage(SubscriberIdAndMessage subscriberIdAndMessage, Runnable callback) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!isDuplicate(subscriberIdAndMessage.getSubscriberId(), subscriberIdAndMessage.getMessage().getId())) {
+                callback.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * このプロセスで購読中のサブスクライバーID(Kafkaのコンシューマーグループ)を保持する.
+ */
+public class SubscriptionRegistry {
+
+    private final ConcurrentMap<String, Integer> subscriptions = new ConcurrentHashMap<>();
+
+    public void register(String subscriberId) {
+        subscriptions.merge(subscriberId, 1, Integer::sum);
+    }
+
+    public void unregister(String subscriberId) {
+        subscriptions.computeIfPresent(subscriberId, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    public Set<String> subscriberIds() {
+        return Set.copyOf(subscriptions.keySet());
+    }
+}
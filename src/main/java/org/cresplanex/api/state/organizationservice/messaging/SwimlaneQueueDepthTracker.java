@@ -0,0 +1,111 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.cresplanex.core.messaging.common.Message;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * スイムレーンごとの未処理メッセージ数を数え, messaging.swimlane.queue.depth{topic, partition, lane}として公開する.
+ * スイムレーンへの割り当て時(HashingTopicPartitionToSwimlaneMapping)に, レコードの(トピック, キー)ごとに割り当てたスイムレーンを記録し,
+ * ハンドラの完了時(SwimlaneTrackingMessageConsumerImplementation)に, 同じ(トピック, キー)で最も古い割り当てのスイムレーンから減らす.
+ * 完了したメッセージの(トピック, キー)は, CDCがレコードを発行する際と同じく宛先とPARTITION_ID(なければメッセージID)とする.
+ * 割り当てが見つからなかった完了はmessaging.swimlane.queue.unmatchedとして数える.
+ */
+public class SwimlaneQueueDepthTracker {
+
+    private final MeterRegistry meterRegistry;
+    private final int swimlanesPerPartition;
+    private final ConcurrentMap<String, AtomicLong> depths = new ConcurrentHashMap<>();
+    // (トピック, キー)ごとの, 処理待ちのメッセージを割り当てたスイムレーン(割り当て順)
+    private final ConcurrentMap<String, Deque<AtomicLong>> pending = new ConcurrentHashMap<>();
+    private final Counter unmatched;
+
+    public SwimlaneQueueDepthTracker(MeterRegistry meterRegistry, int swimlanesPerPartition) {
+        this.meterRegistry = meterRegistry;
+        this.swimlanesPerPartition = swimlanesPerPartition;
+        this.unmatched = Counter.builder("messaging.swimlane.queue.unmatched")
+                .description("Handled messages whose swimlane assignment was not found")
+                .register(meterRegistry);
+    }
+
+    public int swimlanesPerPartition() {
+        return swimlanesPerPartition;
+    }
+
+    /**
+     * パーティション内のスイムレーン番号. 同じキーは常に同じスイムレーンとなる.
+     * キーのないメッセージは, 到着順を保つため先頭のスイムレーンに割り当てる.
+     */
+    public int laneOf(String messageKey) {
+        return messageKey == null ? 0 : Math.floorMod(messageKey.hashCode(), swimlanesPerPartition);
+    }
+
+    /**
+     * レコードをスイムレーンに割り当てた. キーのないレコードは完了時に対応付けられないため数えない.
+     */
+    public void enqueued(TopicPartition topicPartition, String recordKey, int lane) {
+        if (recordKey == null) {
+            return;
+        }
+        AtomicLong depth = depth(topicPartition, lane);
+        depth.incrementAndGet();
+        pending.compute(pendingKey(topicPartition.topic(), recordKey), (k, lanes) -> {
+            Deque<AtomicLong> assigned = lanes == null ? new ArrayDeque<>() : lanes;
+            assigned.addLast(depth);
+            return assigned;
+        });
+    }
+
+    /**
+     * Kafka経由で届いたメッセージの処理が完了した.
+     */
+    public void completed(Message message) {
+        String topic = message.getHeader(Message.DESTINATION).orElse(null);
+        if (topic == null) {
+            unmatched.increment();
+            return;
+        }
+        AtomicLong[] depth = new AtomicLong[1];
+        pending.computeIfPresent(pendingKey(topic, messageKey(message)), (k, lanes) -> {
+            depth[0] = lanes.pollFirst();
+            return lanes.isEmpty() ? null : lanes;
+        });
+        if (depth[0] == null) {
+            unmatched.increment();
+            return;
+        }
+        depth[0].getAndUpdate(value -> Math.max(value - 1, 0));
+    }
+
+    /**
+     * メッセージのキー. CDCがKafkaのキーに用いるPARTITION_ID(なければメッセージID)とする.
+     */
+    public static String messageKey(Message message) {
+        return message.getHeader(Message.PARTITION_ID).orElseGet(message::getId);
+    }
+
+    private static String pendingKey(String topic, String key) {
+        return topic + "|" + key;
+    }
+
+    private AtomicLong depth(TopicPartition topicPartition, int lane) {
+        return depths.computeIfAbsent(topicPartition + "|" + lane, k -> {
+            AtomicLong depth = new AtomicLong();
+            Gauge.builder("messaging.swimlane.queue.depth", depth, AtomicLong::get)
+                    .description("Messages assigned to a swimlane and not yet handled")
+                    .tag("topic", topicPartition.topic())
+                    .tag("partition", String.valueOf(topicPartition.partition()))
+                    .tag("lane", String.valueOf(lane))
+                    .register(meterRegistry);
+            return depth;
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import org.cresplanex.core.messaging.consumer.MessageConsumerImplementation;
+import org.cresplanex.core.messaging.consumer.MessageHandler;
+import org.cresplanex.core.messaging.consumer.MessageSubscription;
+
+import java.util.Set;
+
+/**
+ * Kafkaへの購読(MessageConsumerKafkaImplementation)を包み, ハンドラの完了をSwimlaneQueueDepthTrackerに伝える.
+ * スイムレーンへの割り当ては共有のCoreKafkaMessageConsumerで購読ごとに数えられるため,
+ * 同じCoreKafkaMessageConsumerへの購読はすべてこれを通す.
+ */
+public class SwimlaneTrackingMessageConsumerImplementation implements MessageConsumerImplementation {
+
+    private final MessageConsumerImplementation delegate;
+    private final SwimlaneQueueDepthTracker swimlaneQueueDepthTracker;
+
+    public SwimlaneTrackingMessageConsumerImplementation(
+            MessageConsumerImplementation delegate,
+            SwimlaneQueueDepthTracker swimlaneQueueDepthTracker
+    ) {
+        this.delegate = delegate;
+        this.swimlaneQueueDepthTracker = swimlaneQueueDepthTracker;
+    }
+
+    @Override
+    public MessageSubscription subscribe(String subscriberId, Set<String> channels, MessageHandler handler) {
+        return delegate.subscribe(subscriberId, channels, message -> {
+            try {
+                handler.accept(message);
+            } finally {
+                swimlaneQueueDepthTracker.completed(message);
+            }
+        });
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,114 @@
+package org.cresplanex.api.state.organizationservice.messaging;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.cresplanex.core.common.id.IdGenerator;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.producer.MessageProducerImplementation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * トランザクション内で送信されたメッセージをまとめてOutboxに書き込む.
+ * 送信時にIDを採番してバッファに積み, コミット直前(beforeCommit)に送信順のまま複数行INSERT1文で書き込む.
+ * ロールバックした場合は破棄される.
+ * トランザクション外の送信, beforeCommitより後の送信は即時に単一行のINSERTで書き込む.
+ * データベースでの採番が必要な場合はdelegateで書き込む.
+ * コミット時の1回の書き込みあたりのメッセージ数と書き込み時間はヒストグラムとして公開する(即時の書き込みは含めない).
+ */
+public class TransactionalBufferingMessageProducerImplementation implements MessageProducerImplementation {
+
+    private final MessageProducerImplementation delegate;
+    private final OutboxMessageWriter outboxMessageWriter;
+    private final IdGenerator idGenerator;
+    private final DistributionSummary flushSizeSummary;
+    private final Timer flushTimer;
+
+    public TransactionalBufferingMessageProducerImplementation(
+            MessageProducerImplementation delegate,
+            OutboxMessageWriter outboxMessageWriter,
+            IdGenerator idGenerator,
+            MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.outboxMessageWriter = outboxMessageWriter;
+        this.idGenerator = idGenerator;
+        this.flushSizeSummary = DistributionSummary.builder("outbox.flush.messages")
+                .description("Number of outbox messages written by one multi-row insert at commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("outbox.flush")
+                .description("Time spent writing buffered outbox messages at commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void send(Message message) {
+        if (idGenerator.databaseIdRequired()) {
+            delegate.send(message);
+            return;
+        }
+        // 呼び出し元(Sagaなど)が送信直後にIDを参照するため, 書き込みを待たずに採番する
+        message.setHeader(Message.ID, idGenerator.genId(null, null).asString());
+        Buffer buffer = currentBuffer();
+        if (buffer == null) {
+            // Outboxの分割先を揃えるため, 即時に書き込む場合もOutboxMessageWriterを使用する
+            outboxMessageWriter.insert(message);
+            return;
+        }
+        buffer.messages.add(message);
+    }
+
+    @Override
+    public void setMessageIdIfNecessary(Message message) {
+        delegate.setMessageIdIfNecessary(message);
+    }
+
+    @Override
+    public void withContext(Runnable runnable) {
+        delegate.withContext(runnable);
+    }
+
+    private Buffer currentBuffer() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        return buffer.flushed ? null : buffer;
+    }
+
+    private void flush(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> outboxMessageWriter.insert(messages));
+        flushSizeSummary.record(messages.size());
+    }
+
+    private final class Buffer implements TransactionSynchronization {
+        private final List<Message> messages = new ArrayList<>();
+        private boolean flushed = false;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            flushed = true;
+            flush(messages);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionalBufferingMessageProducerImplementation.this);
+        }
+    }
+}
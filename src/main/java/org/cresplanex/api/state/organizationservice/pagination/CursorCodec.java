@@ -0,0 +1,123 @@
+package org.cresplanex.api.state.organizationservice.pagination;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cresplanex.api.state.organizationservice.exception.InvalidCursorException;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * シーク(キーセット)ページネーション用のカーソルを生成・検証する.
+ * カーソルは「ソート種別 + 最終行のソートキー値」をJSON化し, HMAC-SHA256で署名した不透明な文字列.
+ */
+@Component
+public class CursorCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final SecretKeySpec secretKey;
+
+    /**
+     * @param secret 署名鍵. 未設定や短い鍵では署名を偽造されうるため, 32バイト未満の場合は起動を失敗させる.
+     */
+    public CursorCodec(@Value("${app.cursor.secret:}") String secret) {
+        byte[] key = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException(
+                    "app.cursor.secret (CURSOR_SIGNING_SECRET) must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        this.secretKey = new SecretKeySpec(key, ALGORITHM);
+    }
+
+    /**
+     * カーソルを生成する.
+     *
+     * @param sortKey ソート種別を識別するキー(異なるソートのカーソルの流用を防ぐ)
+     * @param values 最終行のソートキー値(ソート順)
+     * @return 署名付きカーソル
+     */
+    public String encode(String sortKey, List<String> values) {
+        List<String> payload = new ArrayList<>(values.size() + 1);
+        payload.add(sortKey);
+        payload.addAll(values);
+        try {
+            byte[] body = OBJECT_MAPPER.writeValueAsBytes(payload);
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return encoder.encodeToString(body) + "." + encoder.encodeToString(sign(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    /**
+     * 行のソートキー値からカーソルを生成する.
+     *
+     * @param sortKey ソート種別を識別するキー
+     * @param sort ソート(プロパティはネスト指定可, 例: organization.name)
+     * @param row ページ最終行
+     * @return 署名付きカーソル
+     */
+    public String encodeAfter(String sortKey, Sort sort, Object row) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        List<String> values = sort.stream()
+                .map(order -> String.valueOf(wrapper.getPropertyValue(order.getProperty())))
+                .toList();
+        return encode(sortKey, values);
+    }
+
+    /**
+     * カーソルを検証し, ソートキー値を取り出す.
+     *
+     * @param cursor 署名付きカーソル
+     * @param sortKey 期待するソート種別キー
+     * @param size 期待するソートキー値の数
+     * @return ソートキー値(ソート順)
+     * @throws InvalidCursorException 改ざん, 形式不正, ソート種別の不一致の場合
+     */
+    public List<String> decode(String cursor, String sortKey, int size) {
+        int separator = cursor.indexOf('.');
+        if (separator < 0) {
+            throw new InvalidCursorException(cursor);
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] body = decoder.decode(cursor.substring(0, separator));
+            byte[] signature = decoder.decode(cursor.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(body), signature)) {
+                throw new InvalidCursorException(cursor);
+            }
+            List<String> payload = OBJECT_MAPPER.readValue(body, new TypeReference<>() {});
+            if (payload.size() != size + 1 || !sortKey.equals(payload.get(0))) {
+                throw new InvalidCursorException(cursor);
+            }
+            return payload.subList(1, payload.size());
+        } catch (IllegalArgumentException | java.io.IOException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+    }
+
+    private byte[] sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign cursor", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.cresplanex.api.state.organizationservice.projection;
+
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 組織への所属の読み取り専用ビュー.
+ * コンストラクタ式は入れ子のレコードを生成できないため, 組織の項目は平坦に保持する.
+ * 組織を結合しない場合, 組織の項目はnull.
+ */
+public record OrganizationUserView(
+        String organizationUserId,
+        String organizationId,
+        String userId,
+        LocalDateTime createdAt,
+        String organizationOwnerId,
+        String organizationName,
+        String organizationPlan,
+        String organizationSiteUrl,
+        LocalDateTime organizationCreatedAt
+) {
+
+    /**
+     * 所属のみのコンストラクタ引数の順に並べたOrganizationUserEntityの属性.
+     */
+    public static final List<String> ATTRIBUTES = List.of(
+            "organizationUserId", "organizationId", "userId", "createdAt");
+
+    /**
+     * 組織を含むコンストラクタ引数の順に並べたOrganizationUserEntityの属性.
+     */
+    public static final List<String> ATTRIBUTES_WITH_ORGANIZATION = List.of(
+            "organizationUserId", "organizationId", "userId", "createdAt",
+            "organization.ownerId", "organization.name", "organization.plan", "organization.siteUrl",
+            "organization.createdAt");
+
+    public OrganizationUserView(String organizationUserId, String organizationId, String userId, LocalDateTime createdAt) {
+        this(organizationUserId, organizationId, userId, createdAt, null, null, null, null, null);
+    }
+
+    public OrganizationUserView(String organizationUserId, String userId, LocalDateTime createdAt, OrganizationView organization) {
+        this(organizationUserId, organization.organizationId(), userId, createdAt, organization.ownerId(),
+                organization.name(), organization.plan(), organization.siteUrl(), organization.createdAt());
+    }
+
+    public OrganizationView organization() {
+        return new OrganizationView(organizationId, organizationOwnerId, organizationName, organizationPlan,
+                organizationSiteUrl, organizationCreatedAt);
+    }
+
+    /**
+     * カーソルに格納するソートキー値(CursorCodec#encodeAfterと同じ文字列表現).
+     */
+    public List<String> sortValues(Sort sort) {
+        return sort.stream()
+                .map(order -> switch (order.getProperty()) {
+                    case "organizationUserId" -> organizationUserId;
+                    case "createdAt" -> String.valueOf(createdAt);
+                    case "organization.name" -> organizationName;
+                    case "organization.createdAt" -> String.valueOf(organizationCreatedAt);
+                    default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+                })
+                .toList();
+    }
+}
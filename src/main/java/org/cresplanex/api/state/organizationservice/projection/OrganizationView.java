@@ -0,0 +1,40 @@
+package org.cresplanex.api.state.organizationservice.projection;
+
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 組織の読み取り専用ビュー.
+ * 一覧取得ではEntityの代わりにコンストラクタ式で直接生成し, 永続化コンテキストに登録しない.
+ */
+public record OrganizationView(
+        String organizationId,
+        String ownerId,
+        String name,
+        String plan,
+        String siteUrl,
+        LocalDateTime createdAt
+) {
+
+    /**
+     * コンストラクタ引数の順に並べたOrganizationEntityの属性.
+     */
+    public static final List<String> ATTRIBUTES = List.of(
+            "organizationId", "ownerId", "name", "plan", "siteUrl", "createdAt");
+
+    /**
+     * カーソルに格納するソートキー値(CursorCodec#encodeAfterと同じ文字列表現).
+     */
+    public List<String> sortValues(Sort sort) {
+        return sort.stream()
+                .map(order -> switch (order.getProperty()) {
+                    case "organizationId" -> organizationId;
+                    case "name" -> name;
+                    case "createdAt" -> String.valueOf(createdAt);
+                    default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,72 @@
+package org.cresplanex.api.state.organizationservice.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * PostgreSQLのプランナー統計による概算件数を取得する.
+ * 絞り込みがない場合はpg_class.reltuples, ある場合はEXPLAINの推定行数(Plan Rows)を利用する.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class CountEstimateRepository {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Long> estimateOrganizations(PlanFilter planFilter, OwnerFilter ownerFilter, UsersFilter usersFilter) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        OrganizationFilterSql.appendFilters(where, args, planFilter, ownerFilter, usersFilter);
+
+        if (where.isEmpty()) {
+            return estimateTable("organizations");
+        }
+        return explain("SELECT 1 FROM organizations o" + where, args);
+    }
+
+    public Optional<Long> estimateUsersOnOrganization(String organizationId) {
+        return explain("SELECT 1 FROM organization_user ou WHERE ou.organization_id = ?", List.of(organizationId));
+    }
+
+    public Optional<Long> estimateOrganizationsOnUser(String userId) {
+        return explain("SELECT 1 FROM organization_user ou WHERE ou.user_id = ?", List.of(userId));
+    }
+
+    private Optional<Long> estimateTable(String table) {
+        Long reltuples = jdbcTemplate.queryForObject(
+                "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+        // 一度もANALYZEされていない場合は-1となるため, 概算不可とする
+        if (reltuples == null || reltuples < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(reltuples);
+    }
+
+    private Optional<Long> explain(String sql, List<Object> args) {
+        try {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args.toArray());
+            JsonNode rows = OBJECT_MAPPER.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            if (rows.isMissingNode()) {
+                return Optional.empty();
+            }
+            return Optional.of(rows.asLong());
+        } catch (Exception e) {
+            log.warn("Failed to estimate count: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
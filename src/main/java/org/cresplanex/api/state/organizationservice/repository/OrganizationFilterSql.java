@@ -0,0 +1,67 @@
+package org.cresplanex.api.state.organizationservice.repository;
+
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 組織一覧の絞り込み条件をSQLのWHERE句に展開する(organizationsの別名はo).
+ * OrganizationSpecificationsと同じ条件・同じ形のクエリとなるようにする.
+ */
+final class OrganizationFilterSql {
+
+    private OrganizationFilterSql() {
+    }
+
+    static void appendFilters(
+            StringBuilder where,
+            List<Object> args,
+            PlanFilter planFilter,
+            OwnerFilter ownerFilter,
+            UsersFilter usersFilter
+    ) {
+        if (planFilter != null && planFilter.isValid()) {
+            appendIn(where, args, "o.plan", planFilter.getPlans());
+        }
+        if (ownerFilter != null && ownerFilter.isValid()) {
+            appendIn(where, args, "o.owner_id", ownerFilter.getOwnerIds());
+        }
+        if (usersFilter != null && usersFilter.isValid()
+                && usersFilter.getUserIds() != null && !usersFilter.getUserIds().isEmpty()) {
+            List<String> userIds = usersFilter.getUserIds().stream().distinct().toList();
+            appendCondition(where);
+            if (usersFilter.isAny()) {
+                where.append("EXISTS (SELECT 1 FROM organization_user ou WHERE ou.organization_id = o.organization_id AND ou.user_id IN (")
+                        .append(placeholders(userIds.size())).append("))");
+                args.addAll(userIds);
+            } else {
+                where.append("o.organization_id IN (SELECT ou.organization_id FROM organization_user ou WHERE ou.user_id IN (")
+                        .append(placeholders(userIds.size()))
+                        .append(") GROUP BY ou.organization_id HAVING COUNT(DISTINCT ou.user_id) = ?)");
+                args.addAll(userIds);
+                args.add(userIds.size());
+            }
+        }
+    }
+
+    static void appendCondition(StringBuilder where) {
+        where.append(where.isEmpty() ? " WHERE " : " AND ");
+    }
+
+    static String placeholders(int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+
+    private static void appendIn(StringBuilder where, List<Object> args, String column, List<String> values) {
+        appendCondition(where);
+        if (values == null || values.isEmpty()) {
+            where.append("FALSE");
+            return;
+        }
+        where.append(column).append(" IN (").append(placeholders(values.size())).append(")");
+        args.addAll(values);
+    }
+}
@@ -3,8 +3,10 @@ package org.cresplanex.api.state.organizationservice.repository;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +23,18 @@ public interface OrganizationRepository extends JpaRepository<OrganizationEntity
     @Query("SELECT o FROM OrganizationEntity o LEFT JOIN FETCH o.organizationUsers WHERE o.organizationId = :organizationId")
     Optional<OrganizationEntity> findByIdWithUsers(String organizationId);
 
+    /**
+     * 複数のOrganizationを1文で取得する。
+     * IN句と異なり件数によらず同じSQLとなるため, プリペアドステートメントを再利用できる。
+     * 宣言したクエリメソッドには読み取り専用トランザクションが付与されないため明示する(レプリカへの振り分け対象とする)。
+     *
+     * @param organizationIds 組織ID配列
+     * @return Organizationリスト(順不同、存在しないIDは含まない)
+     */
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT * FROM organizations WHERE organization_id = ANY(CAST(:organizationIds AS varchar[]))", nativeQuery = true)
+    List<OrganizationEntity> findAllByOrganizationIdArray(String[] organizationIds);
+
     /**
      * List<OrganizationId>の数を取得
      *
@@ -28,4 +42,15 @@ public interface OrganizationRepository extends JpaRepository<OrganizationEntity
      * @return 組織IDの数
      */
     Optional<Long> countByOrganizationIdIn(List<String> organizationIds);
+
+    /**
+     * Organizationを1文で削除する。
+     * OrganizationUserは外部キーのON DELETE CASCADEによりデータベース側で削除される。
+     *
+     * @param organizationId 組織ID
+     * @return 削除された組織の数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrganizationEntity o WHERE o.organizationId = :organizationId")
+    int deleteByOrganizationId(String organizationId);
 }
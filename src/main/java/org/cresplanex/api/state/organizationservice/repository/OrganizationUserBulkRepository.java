@@ -0,0 +1,108 @@
+package org.cresplanex.api.state.organizationservice.repository;
+
+import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
+import org.cresplanex.core.common.id.IdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * organization_userへの一括登録・一括削除を行う.
+ * JPAのsaveAllは1件ごとにINSERTを発行するため, IDをEntityと同じIdGeneratorで事前に採番したうえで,
+ * unnestによる複数行INSERTをバッチサイズごとに1文で発行する.
+ * 既に所属しているユーザーはON CONFLICTで同一文の中で除外され, 実際に登録された行のみを返す.
+ */
+@Repository
+public class OrganizationUserBulkRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO organization_user (organization_user_id, organization_id, user_id, version, created_at, created_by)
+            SELECT t.organization_user_id, ?, t.user_id, 0, ?, ?
+            FROM unnest(?::varchar[], ?::varchar[]) AS t(organization_user_id, user_id)
+            ON CONFLICT (organization_id, user_id) DO NOTHING
+            RETURNING organization_user_id, user_id
+            """;
+
+    private static final String DELETE_SQL =
+            "DELETE FROM organization_user WHERE organization_user_id = ANY(?::varchar[]) RETURNING organization_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<String> auditorAware;
+    private final IdGenerator idGenerator;
+    private final int batchSize;
+
+    public OrganizationUserBulkRepository(
+            JdbcTemplate jdbcTemplate,
+            AuditorAware<String> auditorAware,
+            IdGenerator idGenerator,
+            @Value("${app.bulk.organization-user.batch-size:1000}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditorAware = auditorAware;
+        this.idGenerator = idGenerator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * ユーザーを組織に一括で登録する.
+     * 既に所属しているユーザー, および引数内で重複しているユーザーは登録されない.
+     *
+     * @param organizationId 組織ID
+     * @param userIds ユーザーIDリスト
+     * @return 登録されたOrganizationUserEntityのリスト
+     */
+    public List<OrganizationUserEntity> insertIgnoringConflicts(String organizationId, List<String> userIds) {
+        List<OrganizationUserEntity> inserted = new ArrayList<>(userIds.size());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        String createdBy = auditorAware.getCurrentAuditor().orElse(null);
+
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<String> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            String[] organizationUserIds = batch.stream()
+                    .map(userId -> idGenerator.genId(null, null).asString())
+                    .toArray(String[]::new);
+
+            inserted.addAll(jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL);
+                ps.setString(1, organizationId);
+                ps.setTimestamp(2, createdAt);
+                ps.setString(3, createdBy);
+                ps.setArray(4, connection.createArrayOf("varchar", organizationUserIds));
+                ps.setArray(5, connection.createArrayOf("varchar", batch.toArray()));
+                return ps;
+            }, (rs, rowNum) -> {
+                OrganizationUserEntity organizationUser = new OrganizationUserEntity();
+                organizationUser.setOrganizationUserId(rs.getString("organization_user_id"));
+                organizationUser.setOrganizationId(organizationId);
+                organizationUser.setUserId(rs.getString("user_id"));
+                return organizationUser;
+            }));
+        }
+
+        return inserted;
+    }
+
+    /**
+     * IDを指定してユーザーの所属を1文で削除する.
+     *
+     * @param organizationUserIds 所属IDリスト
+     * @return 削除された行ごとの組織ID(件数が削除された行数となる)
+     */
+    public List<String> deleteAllByIds(List<String> organizationUserIds) {
+        if (organizationUserIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(DELETE_SQL);
+            ps.setArray(1, connection.createArrayOf("varchar", organizationUserIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString("organization_id"));
+    }
+}
@@ -0,0 +1,199 @@
+package org.cresplanex.api.state.organizationservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 組織とその所属ユーザーを1文で取得する(GetOrganizationsWithUsers用).
+ * 組織のページを先に確定させてから, LATERAL結合で組織ごとの所属ユーザーIDを配列に集約する.
+ * 結果はEntityではなくレコードとして返すため, 永続化コンテキストには登録されない.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrganizationWithUsersQueryRepository {
+
+    /**
+     * findPageで件数を制限しない場合のlimit.
+     */
+    public static final int NO_LIMIT = -1;
+
+    private static final String SELECT_ORGANIZATIONS =
+            "SELECT o.organization_id, o.owner_id, o.name, o.plan, o.site_url, o.created_at FROM organizations o";
+
+    private static final String SELECT_WITH_USERS =
+            "SELECT p.organization_id, p.owner_id, p.name, p.plan, p.site_url, p.created_at,"
+                    + " COALESCE(m.user_ids, ARRAY[]::varchar[]) AS user_ids"
+                    + " FROM (%s) p"
+                    + " LEFT JOIN LATERAL (SELECT array_agg(ou.user_id ORDER BY ou.created_at, ou.organization_user_id) AS user_ids"
+                    + " FROM organization_user ou WHERE ou.organization_id = p.organization_id) m ON TRUE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 条件に一致する組織のページを所属ユーザーIDとともに取得する.
+     *
+     * @param sort ソート(一意となるタイブレーカーを末尾に含むこと)
+     * @param seekValues 直前ページ最終行のソートキー値(先頭ページの場合はnull)
+     * @param limit 取得件数(NO_LIMITの場合は制限しない)
+     * @param offset 読み飛ばす件数
+     */
+    public List<OrganizationWithUsersRow> findPage(
+            PlanFilter planFilter,
+            OwnerFilter ownerFilter,
+            UsersFilter usersFilter,
+            Sort sort,
+            List<String> seekValues,
+            int limit,
+            int offset
+    ) {
+        StringBuilder where = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        OrganizationFilterSql.appendFilters(where, args, planFilter, ownerFilter, usersFilter);
+        if (seekValues != null) {
+            appendSeek(where, args, sort, seekValues);
+        }
+
+        StringBuilder page = new StringBuilder(SELECT_ORGANIZATIONS).append(where)
+                .append(" ORDER BY ").append(orderBy(sort, "o"));
+        if (limit != NO_LIMIT) {
+            page.append(" LIMIT ?");
+            args.add(limit);
+        }
+        if (offset > 0) {
+            page.append(" OFFSET ?");
+            args.add(offset);
+        }
+
+        String sql = SELECT_WITH_USERS.formatted(page) + " ORDER BY " + orderBy(sort, "p");
+        return jdbcTemplate.query(sql, (rs, rowNum) -> toRow(rs), args.toArray());
+    }
+
+    /**
+     * 指定した組織を所属ユーザーIDとともに取得し, 指定したIDの順に並べる.
+     * 存在しない組織は含まない.
+     */
+    public List<OrganizationWithUsersRow> findByOrganizationIds(List<String> organizationIds) {
+        if (organizationIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = SELECT_WITH_USERS.formatted(
+                SELECT_ORGANIZATIONS + " WHERE o.organization_id = ANY(?::varchar[])");
+        Map<String, OrganizationWithUsersRow> rows = jdbcTemplate.query(sql, (rs, rowNum) -> toRow(rs),
+                        (Object) organizationIds.toArray(new String[0])).stream()
+                .collect(Collectors.toMap(OrganizationWithUsersRow::organizationId, Function.identity()));
+        return organizationIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * KeysetSpecifications#seekAfterと同じ条件をSQLで組み立てる.
+     * (k1 > v1) OR (k1 = v1 AND k2 < v2) ... に, 先頭キーの範囲条件を重ねて付与する.
+     */
+    private static void appendSeek(StringBuilder where, List<Object> args, Sort sort, List<String> values) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != values.size()) {
+            throw new IllegalArgumentException("Sort keys and cursor values size mismatch");
+        }
+
+        OrganizationFilterSql.appendCondition(where);
+        where.append(column(orders.get(0).getProperty(), "o")).append(orders.get(0).isAscending() ? " >= ?" : " <= ?");
+        args.add(convert(orders.get(0).getProperty(), values.get(0)));
+
+        List<String> disjunction = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            List<String> conjunction = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                conjunction.add(column(orders.get(j).getProperty(), "o") + " = ?");
+                args.add(convert(orders.get(j).getProperty(), values.get(j)));
+            }
+            conjunction.add(column(orders.get(i).getProperty(), "o") + (orders.get(i).isAscending() ? " > ?" : " < ?"));
+            args.add(convert(orders.get(i).getProperty(), values.get(i)));
+            disjunction.add("(" + String.join(" AND ", conjunction) + ")");
+        }
+        where.append(" AND (").append(String.join(" OR ", disjunction)).append(")");
+    }
+
+    private static String orderBy(Sort sort, String alias) {
+        return sort.stream()
+                .map(order -> column(order.getProperty(), alias) + (order.isAscending() ? " ASC" : " DESC"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String column(String property, String alias) {
+        return alias + "." + switch (property) {
+            case "organizationId" -> "organization_id";
+            case "name" -> "name";
+            case "createdAt" -> "created_at";
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+        };
+    }
+
+    private static Object convert(String property, String value) {
+        return "createdAt".equals(property) ? Timestamp.valueOf(LocalDateTime.parse(value)) : value;
+    }
+
+    private static OrganizationWithUsersRow toRow(ResultSet rs) throws SQLException {
+        Array userIds = rs.getArray("user_ids");
+        try {
+            return new OrganizationWithUsersRow(
+                    rs.getString("organization_id"),
+                    rs.getString("owner_id"),
+                    rs.getString("name"),
+                    rs.getString("plan"),
+                    rs.getString("site_url"),
+                    rs.getTimestamp("created_at").toLocalDateTime(),
+                    Arrays.asList((String[]) userIds.getArray())
+            );
+        } finally {
+            userIds.free();
+        }
+    }
+
+    /**
+     * 組織と所属ユーザーIDの読み取り専用レコード.
+     */
+    public record OrganizationWithUsersRow(
+            String organizationId,
+            String ownerId,
+            String name,
+            String plan,
+            String siteUrl,
+            LocalDateTime createdAt,
+            List<String> userIds
+    ) {
+
+        /**
+         * カーソルに格納するソートキー値(CursorCodec#encodeAfterと同じ文字列表現).
+         */
+        public List<String> sortValues(Sort sort) {
+            return sort.stream()
+                    .map(order -> switch (order.getProperty()) {
+                        case "organizationId" -> organizationId;
+                        case "name" -> name;
+                        case "createdAt" -> String.valueOf(createdAt);
+                        default -> throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+                    })
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.cresplanex.api.state.organizationservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.cresplanex.api.state.organizationservice.specification.KeysetSpecifications;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * JpaSpecificationExecutorでは表現できない取得方法でSpecificationによる検索を行う.
+ */
+@Repository
+public class SpecificationQueryExecutor {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Specificationによる検索をSliceで取得する.
+     * JpaSpecificationExecutor#findAll(Specification, Pageable)はPageを返すためCOUNTクエリが発行されるが,
+     * こちらはlimit + 1件を取得して次ページの有無のみを判定し, COUNTクエリを発行しない.
+     */
+    public <T> Slice<T> findSlice(Class<T> domainClass, Specification<T> spec, Pageable pageable) {
+        TypedQuery<T> typedQuery = createQuery(domainClass, spec, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            List<T> content = typedQuery.getResultList();
+            return new SliceImpl<>(content, pageable, false);
+        }
+
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        List<T> content = typedQuery.getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    /**
+     * Specificationによる検索結果を1件ずつ処理する.
+     * fetchSizeを指定したJDBCのサーバーサイドカーソルで読み進め, fetchSize件ごとに永続化コンテキストをクリアするため,
+     * 結果件数によらずメモリ使用量は一定となる. トランザクション内で呼び出すこと.
+     */
+    public <T> void forEach(Class<T> domainClass, Specification<T> spec, Sort sort, int fetchSize, Consumer<T> consumer) {
+        TypedQuery<T> typedQuery = createQuery(domainClass, spec, sort)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true);
+
+        try (Stream<T> stream = typedQuery.getResultStream()) {
+            Iterator<T> iterator = stream.iterator();
+            int processed = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++processed % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Specificationによる検索結果を, 指定した属性を引数とするコンストラクタ式でビュー(レコード)として取得する.
+     * Entityを生成しないため, 永続化コンテキストへの登録やスナップショットの保持が発生しない.
+     *
+     * @param attributes viewClassのコンストラクタ引数の順に並べた属性(organization.nameのようなネストも可)
+     * @param limit 取得件数(0以下の場合は制限しない)
+     */
+    public <T, R> List<R> findProjected(
+            Class<T> domainClass,
+            Class<R> viewClass,
+            List<String> attributes,
+            Specification<T> spec,
+            Sort sort,
+            int offset,
+            int limit
+    ) {
+        TypedQuery<R> typedQuery = createProjectedQuery(domainClass, viewClass, attributes, spec, sort)
+                .setHint(AvailableHints.HINT_READ_ONLY, true);
+        if (offset > 0) {
+            typedQuery.setFirstResult(offset);
+        }
+        if (limit > 0) {
+            typedQuery.setHint(AvailableHints.HINT_FETCH_SIZE, limit);
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * findProjectedの結果を1件ずつ処理する.
+     * fetchSizeを指定したJDBCのサーバーサイドカーソルで読み進める. トランザクション内で呼び出すこと.
+     */
+    public <T, R> void forEachProjected(
+            Class<T> domainClass,
+            Class<R> viewClass,
+            List<String> attributes,
+            Specification<T> spec,
+            Sort sort,
+            int fetchSize,
+            Consumer<R> consumer
+    ) {
+        TypedQuery<R> typedQuery = createProjectedQuery(domainClass, viewClass, attributes, spec, sort)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true);
+
+        try (Stream<R> stream = typedQuery.getResultStream()) {
+            stream.forEach(consumer);
+        }
+    }
+
+    private <T, R> TypedQuery<R> createProjectedQuery(
+            Class<T> domainClass,
+            Class<R> viewClass,
+            List<String> attributes,
+            Specification<T> spec,
+            Sort sort
+    ) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = criteriaBuilder.createQuery(viewClass);
+        Root<T> root = query.from(domainClass);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // Specification(シーク条件など)で作成済みのJOINを再利用する
+        query.select(criteriaBuilder.construct(viewClass, attributes.stream()
+                .map(attribute -> KeysetSpecifications.resolvePath(root, attribute))
+                .toArray(Selection[]::new)));
+        query.orderBy(sort.stream()
+                .map(order -> {
+                    Path<Comparable<Object>> path = KeysetSpecifications.resolvePath(root, order.getProperty());
+                    return order.isAscending() ? criteriaBuilder.asc(path) : criteriaBuilder.desc(path);
+                })
+                .toList());
+        return entityManager.createQuery(query);
+    }
+
+    private <T> TypedQuery<T> createQuery(Class<T> domainClass, Specification<T> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root);
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,103 @@
+package org.cresplanex.api.state.organizationservice.retention;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.cresplanex.api.state.organizationservice.messaging.SubscriptionRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 購読中のコンシューマーグループのコミット済みオフセットが, 指定時刻までに発行されたメッセージを過ぎているかを確認する.
+ * これを過ぎたメッセージはKafkaから再配信されないため, 受信済みメッセージ(重複検知)の記録を削除できる.
+ */
+@Slf4j
+@Component
+public class ConsumerOffsetChecker implements DisposableBean {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Admin admin;
+    private final SubscriptionRegistry subscriptionRegistry;
+
+    public ConsumerOffsetChecker(
+            SubscriptionRegistry subscriptionRegistry,
+            @Value("${core.kafka.bootstrap.servers}") String bootstrapServers
+    ) {
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers));
+    }
+
+    /**
+     * 購読中のすべてのコンシューマーグループが, timestampより前に発行されたメッセージをすべてコミット済みかどうか.
+     * 購読がない場合, オフセットを取得できない場合はfalse.
+     */
+    public boolean allCommittedBefore(long timestamp) {
+        Set<String> groups = subscriptionRegistry.subscriberIds();
+        if (groups.isEmpty()) {
+            return false;
+        }
+        try {
+            for (String group : groups) {
+                if (!committedBefore(group, timestamp)) {
+                    log.debug("Consumer group {} has not committed messages before {}", group, timestamp);
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to check consumer offsets: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean committedBefore(String group, long timestamp) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+                .partitionsToOffsetAndMetadata()
+                .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        if (committed.isEmpty()) {
+            return false;
+        }
+
+        Map<TopicPartition, OffsetSpec> byTimestamp = new HashMap<>();
+        committed.keySet().forEach(partition -> byTimestamp.put(partition, OffsetSpec.forTimestamp(timestamp)));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> targets = admin.listOffsets(byTimestamp)
+                .all()
+                .get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        // timestamp以降のメッセージがないパーティションは, 末尾までコミット済みであること
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        targets.forEach((partition, info) -> {
+            if (info.offset() < 0) {
+                latest.put(partition, OffsetSpec.latest());
+            }
+        });
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = latest.isEmpty()
+                ? Map.of()
+                : admin.listOffsets(latest).all().get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+            ListOffsetsResult.ListOffsetsResultInfo target = ends.getOrDefault(entry.getKey(), targets.get(entry.getKey()));
+            if (entry.getValue() == null || target == null || entry.getValue().offset() < target.offset()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        admin.close(TIMEOUT);
+    }
+}
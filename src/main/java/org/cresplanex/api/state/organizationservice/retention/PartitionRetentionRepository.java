@@ -0,0 +1,148 @@
+package org.cresplanex.api.state.organizationservice.retention;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * creation_time(ミリ秒)で範囲分割したテーブルの日次パーティションを作成・削除する.
+ * パーティションの範囲はカタログ(pg_inherits, relpartbound)から読み取り, DEFAULTパーティションは対象外とする.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionRetentionRepository {
+
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('?(-?\\d+)'?\\)");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private static final String SELECT_PARTITIONS = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+            """;
+
+    private static final String SELECT_DEFAULT_PARTITION = """
+            SELECT c.relname
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?) AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 期間で区切られたパーティションを, 期間の終了(排他)が早い順に返す.
+     */
+    public List<TimePartition> findPartitions(String schema, String table) {
+        return jdbcTemplate.query(SELECT_PARTITIONS, (rs, rowNum) -> {
+                    Matcher matcher = UPPER_BOUND.matcher(rs.getString("bound"));
+                    return matcher.find() ? new TimePartition(rs.getString("relname"), Long.parseLong(matcher.group(1))) : null;
+                }, schema + "." + table).stream()
+                .filter(Objects::nonNull)
+                .sorted((a, b) -> Long.compare(a.upperBoundMillis(), b.upperBoundMillis()))
+                .toList();
+    }
+
+    /**
+     * 指定日(UTC)のパーティションを作成する.
+     * 既存のパーティションと重ならないよう, 開始はfromMillisと日の開始の遅い方とする.
+     * 作成が遅れ, DEFAULTパーティションに範囲内の行がある場合(そのままでは作成に失敗する)は,
+     * DEFAULTを切り離して作成し, 行を移してから付け直す(その間, 親テーブルへの書き込みは待たされる).
+     * Outboxの場合, 移した行はCDCが再度読み取るため再送となる(受信側で重複として破棄される).
+     *
+     * @return 作成した場合はtrue(既に範囲が作成済みの場合はfalse)
+     */
+    @Transactional
+    public boolean createDailyPartition(String schema, String table, LocalDate day, long fromMillis) {
+        long dayStart = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long lower = Math.max(dayStart, fromMillis);
+        long upper = dayStart + DAY_MILLIS;
+        if (lower >= upper) {
+            return false;
+        }
+        String parent = qualify(schema, table);
+        String partition = qualify(schema, table + "_p" + PARTITION_SUFFIX.format(day));
+        String createSql = "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM (%d) TO (%d)".formatted(
+                partition, parent, lower, upper);
+
+        Optional<String> defaultPartition = findDefaultPartition(schema, table)
+                .map(name -> qualify(schema, name))
+                .filter(name -> hasRowsBetween(name, lower, upper));
+        if (defaultPartition.isEmpty()) {
+            jdbcTemplate.execute(createSql);
+            return true;
+        }
+        jdbcTemplate.execute("ALTER TABLE %s DETACH PARTITION %s".formatted(parent, defaultPartition.get()));
+        jdbcTemplate.execute(createSql);
+        jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM %s WHERE creation_time >= ? AND creation_time < ? RETURNING *
+                )
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(defaultPartition.get(), partition), lower, upper);
+        jdbcTemplate.execute("ALTER TABLE %s ATTACH PARTITION %s DEFAULT".formatted(parent, defaultPartition.get()));
+        return true;
+    }
+
+    private Optional<String> findDefaultPartition(String schema, String table) {
+        return jdbcTemplate.queryForList(SELECT_DEFAULT_PARTITION, String.class, schema + "." + table).stream().findFirst();
+    }
+
+    private boolean hasRowsBetween(String qualifiedTable, long lower, long upper) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM %s WHERE creation_time >= ? AND creation_time < ?)".formatted(qualifiedTable),
+                Boolean.class, lower, upper);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    public void dropPartition(String schema, String partition) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + qualify(schema, partition));
+    }
+
+    /**
+     * 全パーティション(インデックスを含む)の合計サイズ(バイト).
+     */
+    public long totalSize(String schema, String table) {
+        Long size = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(pg_total_relation_size(relid)), 0) FROM pg_partition_tree(to_regclass(?))",
+                Long.class, schema + "." + table);
+        return size == null ? 0 : size;
+    }
+
+    public String currentWalLsn() {
+        return jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+    }
+
+    /**
+     * プレフィックスに一致するレプリケーションスロットが1つ以上あり, すべてがlsnまで確認済みかどうか.
+     */
+    public boolean slotsConfirmedPast(String slotNamePrefix, String lsn) {
+        Boolean passed = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) > 0 AND BOOL_AND(confirmed_flush_lsn IS NOT NULL AND confirmed_flush_lsn >= ?::pg_lsn)
+                FROM pg_replication_slots
+                WHERE starts_with(slot_name, ?)
+                """, Boolean.class, lsn, slotNamePrefix);
+        return Boolean.TRUE.equals(passed);
+    }
+
+    private static String qualify(String schema, String table) {
+        return "\"" + schema + "\".\"" + table + "\"";
+    }
+
+    /**
+     * @param name パーティション名
+     * @param upperBoundMillis 期間の終了(排他, エポックミリ秒)
+     */
+    public record TimePartition(String name, long upperBoundMillis) {
+    }
+}
@@ -0,0 +1,230 @@
+package org.cresplanex.api.state.organizationservice.retention;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.retention.PartitionRetentionRepository.TimePartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Outbox(message, message0 ... message{N-1})と受信済みメッセージ(received_messages)の保持期間を管理する.
+ * 日次パーティションを先行して作成し, 保持期間を過ぎたパーティションは行単位のDELETEではなくDROPで削除する.
+ * 削除は読み手が読み終えたものに限る.
+ * - Outbox: 期間終了(+closingGrace)より後に記録したWALの位置を, CDCのすべてのレプリケーションスロットが確認済みであること
+ * - 受信済みメッセージ: 期間終了(+redeliveryMargin)までに発行されたメッセージを, 購読中のすべてのコンシューマーグループがコミット済みであること
+ * 複数インスタンスで同時に実行しても, 作成・削除はいずれも冪等となる.
+ * 作成・削除・サイズの取得は独立して行い, 一方の失敗で他方が止まらないようにする.
+ * テーブルサイズ, 削除にかかった時間, 削除したパーティション数, 失敗した回数をメトリクスとして公開する.
+ */
+@Slf4j
+@Component
+public class RetentionEngine implements DisposableBean {
+
+    private static final String RECEIVED_MESSAGES = "received_messages";
+    // WALの位置の記録は最大でこの件数を保持する(interval=1hで約40日分)
+    private static final int MAX_LSN_SAMPLES = 1000;
+
+    private final PartitionRetentionRepository partitionRetentionRepository;
+    private final ConsumerOffsetChecker consumerOffsetChecker;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String schema;
+    private final List<String> outboxTables;
+    private final String slotNamePrefix;
+    private final Duration interval;
+    private final int premakeDays;
+    private final Duration closingGrace;
+    private final Duration outboxRetention;
+    private final Duration receivedMessagesRetention;
+    private final Duration redeliveryMargin;
+
+    private final Deque<LsnSample> lsnSamples = new ConcurrentLinkedDeque<>();
+    private final Map<String, AtomicLong> tableSizes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "retention-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RetentionEngine(
+            PartitionRetentionRepository partitionRetentionRepository,
+            ConsumerOffsetChecker consumerOffsetChecker,
+            MeterRegistry meterRegistry,
+            @Value("${app.retention.enabled:true}") boolean enabled,
+            @Value("${core.database.schema:core}") String schema,
+            @Value("${core.outbox.partitioning.outbox.tables:0}") int outboxTables,
+            @Value("${app.cdc.slot-name-prefix:debezium_organization_service_slot}") String slotNamePrefix,
+            @Value("${app.retention.interval:1h}") Duration interval,
+            @Value("${app.retention.premake-days:3}") int premakeDays,
+            @Value("${app.retention.closing-grace:10m}") Duration closingGrace,
+            @Value("${app.retention.outbox.retention:3d}") Duration outboxRetention,
+            @Value("${app.retention.received-messages.retention:7d}") Duration receivedMessagesRetention,
+            @Value("${app.retention.received-messages.redelivery-margin:1h}") Duration redeliveryMargin
+    ) {
+        this.partitionRetentionRepository = partitionRetentionRepository;
+        this.consumerOffsetChecker = consumerOffsetChecker;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.schema = schema;
+        List<String> tables = new ArrayList<>();
+        tables.add("message");
+        for (int i = 0; i < outboxTables; i++) {
+            tables.add("message" + i);
+        }
+        this.outboxTables = List.copyOf(tables);
+        this.slotNamePrefix = slotNamePrefix;
+        this.interval = interval;
+        this.premakeDays = premakeDays;
+        this.closingGrace = closingGrace;
+        this.outboxRetention = outboxRetention;
+        this.receivedMessagesRetention = receivedMessagesRetention;
+        this.redeliveryMargin = redeliveryMargin;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::run, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        try {
+            sampleLsn();
+        } catch (Exception e) {
+            log.warn("Failed to sample WAL position: {}", e.getMessage());
+        }
+        for (String table : outboxTables) {
+            maintain(table, outboxRetention, this::outboxCaptured);
+        }
+        maintain(RECEIVED_MESSAGES, receivedMessagesRetention,
+                upperBound -> consumerOffsetChecker.allCommittedBefore(upperBound + redeliveryMargin.toMillis()));
+    }
+
+    private void maintain(String table, Duration retention, LongPredicate consumed) {
+        attempt(table, "premake", () -> premake(table));
+        attempt(table, "purge", () -> purgeTimer(table).record(() -> purge(table, retention, consumed)));
+        attempt(table, "measure", () -> tableSize(table).set(partitionRetentionRepository.totalSize(schema, table)));
+    }
+
+    private void attempt(String table, String operation, Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            failureCounter(table, operation).increment();
+            log.warn("Failed to {} partitions of {}.{}: {}", operation, schema, table, e.getMessage());
+        }
+    }
+
+    private void premake(String table) {
+        List<TimePartition> partitions = partitionRetentionRepository.findPartitions(schema, table);
+        long covered = partitions.isEmpty() ? Long.MIN_VALUE : partitions.get(partitions.size() - 1).upperBoundMillis();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (int d = 0; d <= premakeDays; d++) {
+            LocalDate day = today.plusDays(d);
+            if (partitionRetentionRepository.createDailyPartition(schema, table, day, covered)) {
+                covered = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            }
+        }
+    }
+
+    private void purge(String table, Duration retention, LongPredicate consumed) {
+        long now = System.currentTimeMillis();
+        for (TimePartition partition : partitionRetentionRepository.findPartitions(schema, table)) {
+            if (partition.upperBoundMillis() + retention.toMillis() > now) {
+                break;
+            }
+            if (!consumed.test(partition.upperBoundMillis())) {
+                log.info("Retaining expired partition {}.{} until it has been consumed", schema, partition.name());
+                break;
+            }
+            partitionRetentionRepository.dropPartition(schema, partition.name());
+            droppedCounter(table).increment();
+            log.info("Dropped expired partition {}.{}", schema, partition.name());
+        }
+    }
+
+    /**
+     * 期間終了後(closingGraceを含む)に記録したWALの位置を, すべてのスロットが確認済みであればtrue.
+     * その時点で期間内の書き込みはすべてコミット済みのため, それより前の位置にある.
+     */
+    private boolean outboxCaptured(long upperBound) {
+        long closedAt = upperBound + closingGrace.toMillis();
+        return lsnSamples.stream()
+                .filter(sample -> sample.sampledAt() >= closedAt)
+                .findFirst()
+                .map(sample -> partitionRetentionRepository.slotsConfirmedPast(slotNamePrefix, sample.lsn()))
+                .orElse(false);
+    }
+
+    private void sampleLsn() {
+        lsnSamples.addLast(new LsnSample(System.currentTimeMillis(), partitionRetentionRepository.currentWalLsn()));
+        while (lsnSamples.size() > MAX_LSN_SAMPLES) {
+            lsnSamples.pollFirst();
+        }
+    }
+
+    private AtomicLong tableSize(String table) {
+        return tableSizes.computeIfAbsent(table, t -> {
+            AtomicLong size = new AtomicLong();
+            Gauge.builder("retention.table.size", size, AtomicLong::get)
+                    .description("Total size of all partitions of a retained table including indexes")
+                    .tag("table", t)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            return size;
+        });
+    }
+
+    private Timer purgeTimer(String table) {
+        return Timer.builder("retention.purge")
+                .description("Time spent dropping expired partitions of a retained table")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    private Counter droppedCounter(String table) {
+        return Counter.builder("retention.partitions.dropped")
+                .description("Number of expired partitions dropped")
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    private Counter failureCounter(String table, String operation) {
+        return Counter.builder("retention.failures")
+                .description("Number of failed retention operations")
+                .tag("table", table)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private record LsnSample(long sampledAt, String lsn) {
+    }
+}
@@ -17,6 +17,7 @@ import org.cresplanex.api.state.organizationservice.exception.AlreadyExistOrgani
 import org.cresplanex.api.state.organizationservice.exception.NotFoundOrganizationException;
 import org.cresplanex.api.state.organizationservice.exception.NotFoundOrganizationUserException;
 import org.cresplanex.api.state.organizationservice.mapper.dto.DtoMapper;
+import org.cresplanex.api.state.organizationservice.saga.reply.UndoReply;
 import org.cresplanex.api.state.organizationservice.service.OrganizationService;
 import org.cresplanex.core.commands.consumer.CommandHandlers;
 import org.cresplanex.core.commands.consumer.CommandMessage;
@@ -120,14 +121,19 @@ public class OrganizationSagaCommandHandlers {
         try {
         CreateOrganizationAndAddInitialOrganizationUserCommand.Undo command = cmd.getCommand();
             String organizationId = command.getOrganizationId();
-            organizationService.undoCreate(organizationId);
-            return withSuccess();
+            int deletedCount = organizationService.undoCreate(organizationId);
+            UndoReply reply = new UndoReply(
+                    deletedCount,
+                    "Organization deleted successfully",
+                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            );
+            return withSuccess(reply, UndoReply.TYPE);
         } catch (Exception e) {
             return withException();
         }
     }
 
-    private Message handleAddUsersOrganizationCommand(
+    Message handleAddUsersOrganizationCommand(
             CommandMessage<AddUsersOrganizationCommand.Exec> cmd
     ) {
         try {
@@ -170,8 +176,13 @@ public class OrganizationSagaCommandHandlers {
     private Message handleUndoAddUsersOrganizationCommand(CommandMessage<AddUsersOrganizationCommand.Undo> cmd) {
         try {
             AddUsersOrganizationCommand.Undo command = cmd.getCommand();
-            organizationService.undoAddUsers(command.getUserOrganizationIds());
-            return withSuccess();
+            int deletedCount = organizationService.undoAddUsers(command.getUserOrganizationIds());
+            UndoReply reply = new UndoReply(
+                    deletedCount,
+                    "Users removed successfully",
+                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            );
+            return withSuccess(reply, UndoReply.TYPE);
         } catch (Exception e) {
             return withException();
         }
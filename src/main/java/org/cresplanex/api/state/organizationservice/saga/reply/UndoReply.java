@@ -0,0 +1,23 @@
+package org.cresplanex.api.state.organizationservice.saga.reply;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 補償コマンドの応答.
+ * 削除した行数をオーケストレーターに返し, 補償が実際に行われたかを追跡できるようにする.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UndoReply {
+
+    public static final String TYPE = "organization.undo.success";
+
+    private int deletedCount;
+    private String message;
+    private String timestamp;
+}
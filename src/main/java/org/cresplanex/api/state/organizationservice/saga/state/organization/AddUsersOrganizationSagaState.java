@@ -22,6 +22,9 @@ public class AddUsersOrganizationSagaState
     private List<UserOnOrganizationDto> addedUsers = new ArrayList<>();
     private List<UserOnTeamDto> addedUsersOnTeam = new ArrayList<>();
     private String operatorId;
+    // 大量のユーザー追加をチャンクに分割して実行する場合の, このSagaが担当するチャンク番号と総チャンク数
+    private int chunkIndex = 0;
+    private int chunkCount = 1;
 
     @Override
     public String getId() {
@@ -0,0 +1,152 @@
+package org.cresplanex.api.state.organizationservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationInvalidatedEvent;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
+import org.cresplanex.api.state.organizationservice.enums.CountMode;
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.repository.CountEstimateRepository;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationRepository;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 一覧取得時の件数を取得する.
+ * EXACT: 毎回COUNTクエリを発行する.
+ * CACHED: 正規化した検索条件ごとに正確な件数を一定時間キャッシュする.
+ * ESTIMATED: PostgreSQLのプランナー統計による概算件数を返す(取得できない場合はEXACT).
+ */
+@Slf4j
+@Service
+public class OrganizationCountService {
+
+    private final OrganizationRepository organizationRepository;
+    private final OrganizationUserRepository organizationUserRepository;
+    private final CountEstimateRepository countEstimateRepository;
+    private final Cache<String, Long> countCache;
+
+    public OrganizationCountService(
+            OrganizationRepository organizationRepository,
+            OrganizationUserRepository organizationUserRepository,
+            CountEstimateRepository countEstimateRepository,
+            @Value("${app.count.cache.ttl:30s}") Duration ttl,
+            @Value("${app.count.cache.maximum-size:10000}") long maximumSize
+    ) {
+        this.organizationRepository = organizationRepository;
+        this.organizationUserRepository = organizationUserRepository;
+        this.countEstimateRepository = countEstimateRepository;
+        this.countCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public int countOrganizations(
+            CountMode countMode,
+            Specification<OrganizationEntity> spec,
+            PlanFilter planFilter,
+            OwnerFilter ownerFilter,
+            UsersFilter usersFilter
+    ) {
+        return switch (countMode) {
+            case CACHED -> cached(
+                    "organizations|" + normalize(planFilter) + "|" + normalize(ownerFilter) + "|" + normalize(usersFilter),
+                    () -> organizationRepository.count(spec));
+            case ESTIMATED -> toInt(countEstimateRepository.estimateOrganizations(planFilter, ownerFilter, usersFilter)
+                    .orElseGet(() -> organizationRepository.count(spec)));
+            default -> toInt(organizationRepository.count(spec));
+        };
+    }
+
+    public int countUsersOnOrganization(
+            CountMode countMode,
+            Specification<OrganizationUserEntity> spec,
+            String organizationId
+    ) {
+        return switch (countMode) {
+            case CACHED -> cached("usersOnOrganization|" + organizationId,
+                    () -> organizationUserRepository.count(spec));
+            case ESTIMATED -> toInt(countEstimateRepository.estimateUsersOnOrganization(organizationId)
+                    .orElseGet(() -> organizationUserRepository.count(spec)));
+            default -> toInt(organizationUserRepository.count(spec));
+        };
+    }
+
+    public int countOrganizationsOnUser(
+            CountMode countMode,
+            Specification<OrganizationUserEntity> spec,
+            String userId
+    ) {
+        return switch (countMode) {
+            case CACHED -> cached("organizationsOnUser|" + userId,
+                    () -> organizationUserRepository.count(spec));
+            case ESTIMATED -> toInt(countEstimateRepository.estimateOrganizationsOnUser(userId)
+                    .orElseGet(() -> organizationUserRepository.count(spec)));
+            default -> toInt(organizationUserRepository.count(spec));
+        };
+    }
+
+    /**
+     * キャッシュした件数をすべて破棄する.
+     */
+    public void evictAll() {
+        countCache.invalidateAll();
+    }
+
+    /**
+     * 組織の変更を受けて, その組織の所属ユーザー数のキャッシュを破棄する.
+     */
+    @EventListener
+    public void onOrganizationInvalidated(OrganizationInvalidatedEvent event) {
+        countCache.invalidate("usersOnOrganization|" + event.organizationId());
+    }
+
+    private int cached(String key, Supplier<Long> loader) {
+        return toInt(countCache.get(key, k -> loader.get()));
+    }
+
+    private static int toInt(long count) {
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    private static String normalize(PlanFilter planFilter) {
+        if (planFilter == null || !planFilter.isValid()) {
+            return "plan:-";
+        }
+        return "plan:" + sorted(planFilter.getPlans());
+    }
+
+    private static String normalize(OwnerFilter ownerFilter) {
+        if (ownerFilter == null || !ownerFilter.isValid()) {
+            return "owner:-";
+        }
+        return "owner:" + sorted(ownerFilter.getOwnerIds());
+    }
+
+    private static String normalize(UsersFilter usersFilter) {
+        if (usersFilter == null || !usersFilter.isValid()
+                || usersFilter.getUserIds() == null || usersFilter.getUserIds().isEmpty()) {
+            return "users:-";
+        }
+        return "users:" + (usersFilter.isAny() ? "any" : "all") + sorted(usersFilter.getUserIds());
+    }
+
+    private static List<String> sorted(List<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream().distinct().sorted().toList();
+    }
+}
@@ -1,12 +1,17 @@
 package org.cresplanex.api.state.organizationservice.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.cresplanex.api.state.common.entity.ListEntityWithCount;
 import org.cresplanex.api.state.common.enums.PaginationType;
 import org.cresplanex.api.state.common.saga.local.LocalException;
 import org.cresplanex.api.state.common.service.BaseService;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationBatchLoader;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationCache;
+import org.cresplanex.api.state.organizationservice.datasource.ReadYourWritesTracker;
+import org.cresplanex.api.state.organizationservice.entity.ListEntityWithCountAndCursor;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationWithUsersPage;
+import org.cresplanex.api.state.organizationservice.enums.CountMode;
 import org.cresplanex.api.state.organizationservice.enums.OrganizationOnUserSortType;
 import org.cresplanex.api.state.organizationservice.enums.OrganizationSortType;
 import org.cresplanex.api.state.organizationservice.enums.OrganizationWithUsersSortType;
@@ -15,20 +20,30 @@ import org.cresplanex.api.state.organizationservice.exception.AlreadyExistOrgani
 import org.cresplanex.api.state.organizationservice.exception.NotFoundOrganizationUserException;
 import org.cresplanex.api.state.organizationservice.exception.OrganizationNotFoundException;
 import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.index.Membership;
+import org.cresplanex.api.state.organizationservice.index.MembershipOrdering;
+import org.cresplanex.api.state.organizationservice.index.OrganizationMembershipIndex;
+import org.cresplanex.api.state.organizationservice.index.OrganizationOrdering;
 import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
 import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.pagination.CursorCodec;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationUserView;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
 import org.cresplanex.api.state.organizationservice.repository.OrganizationRepository;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationUserBulkRepository;
 import org.cresplanex.api.state.organizationservice.repository.OrganizationUserRepository;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationWithUsersQueryRepository;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationWithUsersQueryRepository.OrganizationWithUsersRow;
+import org.cresplanex.api.state.organizationservice.repository.SpecificationQueryExecutor;
 import org.cresplanex.api.state.organizationservice.saga.model.organization.AddUsersOrganizationSaga;
 import org.cresplanex.api.state.organizationservice.saga.model.organization.CreateOrganizationSaga;
 import org.cresplanex.api.state.organizationservice.saga.state.organization.AddUsersOrganizationSagaState;
 import org.cresplanex.api.state.organizationservice.saga.state.organization.CreateOrganizationSagaState;
+import org.cresplanex.api.state.organizationservice.specification.KeysetSpecifications;
 import org.cresplanex.api.state.organizationservice.specification.OrganizationSpecifications;
 import org.cresplanex.api.state.organizationservice.specification.OrganizationUserSpecifications;
 import org.cresplanex.core.saga.orchestration.SagaInstanceFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -37,9 +52,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.groupingBy;
 
@@ -48,41 +71,86 @@ import static java.util.stream.Collectors.groupingBy;
 @Service
 public class OrganizationService extends BaseService {
 
+    // データベースの照合順序で並ぶソートプロパティ(インデックスでは並べ替えない)
+    private static final Set<String> NAME_SORT_PROPERTIES = Set.of("name", "organization.name");
+
     private final OrganizationRepository organizationRepository;
     private final OrganizationUserRepository organizationUserRepository;
+    private final OrganizationUserBulkRepository organizationUserBulkRepository;
+    private final OrganizationWithUsersQueryRepository organizationWithUsersQueryRepository;
     private final SagaInstanceFactory sagaInstanceFactory;
+    private final CursorCodec cursorCodec;
+    private final SpecificationQueryExecutor specificationQueryExecutor;
+    private final OrganizationCountService organizationCountService;
+    private final OrganizationCache organizationCache;
+    private final OrganizationBatchLoader organizationBatchLoader;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final OrganizationMembershipIndex organizationMembershipIndex;
 
     private final CreateOrganizationSaga createOrganizationSaga;
     private final AddUsersOrganizationSaga addUsersOrganizationSaga;
 
-    @Transactional(readOnly = true)
+    @Value("${app.grpc.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${app.saga.add-users.chunk-size:1000}")
+    private int addUsersChunkSize;
+
+    @Value("${app.membership-index.users-filter:true}")
+    private boolean indexUsersFilterEnabled;
+
+    @Value("${app.organization.with-users.max-users:1000}")
+    private int maxUsersWithOrganization;
+
+    /**
+     * キャッシュを優先して組織を取得する.
+     * ヒット時にトランザクション(コネクション)を開始しないよう, 読み込みはリポジトリのトランザクションで行う.
+     */
     public OrganizationEntity findById(String organizationId) {
-        return internalFindById(organizationId);
+        return organizationCache.get(organizationId, this::internalFindById);
     }
 
+    /**
+     * 組織と所属ユーザーの1ページ分を取得する.
+     * 所属ユーザーは追加日時の昇順で, 件数はサーバー側の上限(app.organization.with-users.max-users)を超えない.
+     *
+     * @param userLimit 取得する所属ユーザーの件数(0以下の場合は上限まで)
+     * @param userCursor 直前に取得したページのカーソル(先頭ページの場合はnull)
+     */
     @Transactional(readOnly = true)
-    public OrganizationEntity findByIdWithUsers(String organizationId) {
-        return organizationRepository.findByIdWithUsers(organizationId).orElseThrow(() -> new OrganizationNotFoundException(
-                OrganizationNotFoundException.FindType.BY_ID,
-                organizationId
-        ));
+    public OrganizationWithUsersPage findByIdWithUsers(
+            String organizationId,
+            int userLimit,
+            String userCursor,
+            CountMode countMode
+    ) {
+        readYourWritesTracker.requirePrimaryIfRecentlyWritten(organizationId);
+        OrganizationEntity organization = findById(organizationId);
+        int limit = userLimit > 0 ? Math.min(userLimit, maxUsersWithOrganization) : maxUsersWithOrganization;
+        ListEntityWithCountAndCursor<OrganizationUserView> users = getUsersOnOrganization(organizationId,
+                PaginationType.CURSOR, limit, 0, userCursor, UserOnOrganizationSortType.ADD_AT_ASC, true, countMode);
+        return new OrganizationWithUsersPage(organization, users);
     }
 
+    /**
+     * 同時に発生した取得はOrganizationBatchLoaderで1回のクエリにまとめる.
+     */
     private OrganizationEntity internalFindById(String organizationId) {
-        return organizationRepository.findById(organizationId).orElseThrow(() -> new OrganizationNotFoundException(
+        return organizationBatchLoader.load(organizationId).orElseThrow(() -> new OrganizationNotFoundException(
                 OrganizationNotFoundException.FindType.BY_ID,
                 organizationId
         ));
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<OrganizationEntity> get(
+    public ListEntityWithCountAndCursor<OrganizationView> get(
             PaginationType paginationType,
             int limit,
             int offset,
             String cursor,
             OrganizationSortType sortType,
             boolean withCount,
+            CountMode countMode,
             PlanFilter planFilter,
             OwnerFilter ownerFilter,
             UsersFilter usersFilter
@@ -94,163 +162,185 @@ public class OrganizationService extends BaseService {
 
         Sort sort = createSort(sortType);
 
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<OrganizationEntity> data = organizationRepository.findAll(spec, pageable);
-
-        int count = 0;
-        if (withCount){
-            count = (int)data.getTotalElements();
+        if (canFilterUsersByIndex(usersFilter) && canSortByIndex(sort)) {
+            return findOrganizationsFromIndex(sort, "organization:" + sortType.name(), paginationType, limit, offset,
+                    cursor, planFilter, ownerFilter, usersFilter);
         }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
-        );
+
+        return findList(OrganizationEntity.class, OrganizationView.class, OrganizationView.ATTRIBUTES, spec, sort,
+                "organization:" + sortType.name(), view -> view.sortValues(sort), paginationType, limit, offset, cursor,
+                withCount, () -> organizationCountService.countOrganizations(countMode, spec, planFilter, ownerFilter, usersFilter));
     }
 
+    /**
+     * 組織と所属ユーザーをJDBCで1文で取得し, Entityを生成せずにレコードとして返す.
+     */
     @Transactional(readOnly = true)
-    public ListEntityWithCount<OrganizationEntity> getWithUsers(
+    public ListEntityWithCountAndCursor<OrganizationWithUsersRow> getWithUsers(
             PaginationType paginationType,
             int limit,
             int offset,
             String cursor,
             OrganizationWithUsersSortType sortType,
             boolean withCount,
+            CountMode countMode,
             PlanFilter planFilter,
             OwnerFilter ownerFilter,
             UsersFilter usersFilter
     ) {
-        Specification<OrganizationEntity> spec = Specification.where(
-                OrganizationSpecifications.withPlanFilter(planFilter)
-                        .and(OrganizationSpecifications.withOwnerFilter(ownerFilter))
-                        .and(OrganizationSpecifications.withBelongUsersFilter(usersFilter)));
-//                        .and(OrganizationSpecifications.fetchOrganizationUsers()));
-
         Sort sort = createSort(sortType);
+        String sortKey = "organizationWithUsers:" + sortType.name();
+
+        if (canFilterUsersByIndex(usersFilter) && canSortByIndex(sort)) {
+            ListEntityWithCountAndCursor<OrganizationView> page = pageOrganizationsFromIndex(sort, sortKey,
+                    paginationType, limit, offset, cursor, planFilter, ownerFilter, usersFilter);
+            List<OrganizationWithUsersRow> rows = organizationWithUsersQueryRepository.findByOrganizationIds(
+                    page.getData().stream().map(OrganizationView::organizationId).toList());
+            return new ListEntityWithCountAndCursor<>(rows, page.getCount(), page.getNextCursor());
+        }
 
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<OrganizationEntity> data = organizationRepository.findAll(spec, pageable);
-
-        List<String> organizationIds = data.getContent().stream()
-                .map(OrganizationEntity::getOrganizationId)
-                .toList();
-
-        Specification<OrganizationUserEntity> userSpec = Specification.where(
-                OrganizationUserSpecifications.whereOrganizationIds(organizationIds));
-
-        List<OrganizationUserEntity> users = organizationUserRepository.findAll(userSpec);
-
-        Map<String, List<OrganizationUserEntity>> userMap = new HashMap<>();
-
-        users.forEach(user -> {
-            if (userMap.containsKey(user.getOrganizationId())) {
-                userMap.get(user.getOrganizationId()).add(user);
-            } else {
-                List<OrganizationUserEntity> list = new ArrayList<>();
-                list.add(user);
-                userMap.put(user.getOrganizationId(), list);
+        List<OrganizationWithUsersRow> rows;
+        String nextCursor = null;
+        switch (paginationType) {
+            case CURSOR -> {
+                List<String> seekValues = cursor == null || cursor.isEmpty()
+                        ? null
+                        : cursorCodec.decode(cursor, sortKey, sort.toList().size());
+                rows = organizationWithUsersQueryRepository.findPage(
+                        planFilter, ownerFilter, usersFilter, sort, seekValues, limit + 1, 0);
+                if (rows.size() > limit) {
+                    rows = rows.subList(0, limit);
+                    nextCursor = cursorCodec.encode(sortKey, rows.get(rows.size() - 1).sortValues(sort));
+                }
             }
-        });
-
-        data.getContent().forEach(organization -> {
-            organization.setOrganizationUsers(userMap.get(organization.getOrganizationId()));
-        });
+            // findListと同様に, offsetはlimit単位のページ先頭に揃える
+            case OFFSET -> rows = organizationWithUsersQueryRepository.findPage(
+                    planFilter, ownerFilter, usersFilter, sort, null, limit, offset / limit * limit);
+            default -> rows = organizationWithUsersQueryRepository.findPage(
+                    planFilter, ownerFilter, usersFilter, sort, null, OrganizationWithUsersQueryRepository.NO_LIMIT, 0);
+        }
 
         int count = 0;
-        if (withCount){
-            count = (int)data.getTotalElements();
+        if (withCount) {
+            Specification<OrganizationEntity> spec = Specification.where(
+                    OrganizationSpecifications.withPlanFilter(planFilter)
+                            .and(OrganizationSpecifications.withOwnerFilter(ownerFilter))
+                            .and(OrganizationSpecifications.withBelongUsersFilter(usersFilter)));
+            count = organizationCountService.countOrganizations(countMode, spec, planFilter, ownerFilter, usersFilter);
         }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
-        );
+        return new ListEntityWithCountAndCursor<>(rows, count, nextCursor);
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<OrganizationUserEntity> getUsersOnOrganization(
+    public ListEntityWithCountAndCursor<OrganizationUserView> getUsersOnOrganization(
             String organizationId,
             PaginationType paginationType,
             int limit,
             int offset,
             String cursor,
             UserOnOrganizationSortType sortType,
-            boolean withCount
+            boolean withCount,
+            CountMode countMode
     ) {
+        readYourWritesTracker.requirePrimaryIfRecentlyWritten(organizationId);
+
         Specification<OrganizationUserEntity> spec = Specification.where(
                 OrganizationUserSpecifications.whereOrganizationId(organizationId));
 
         Sort sort = createSort(sortType);
 
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
-
-        Page<OrganizationUserEntity> data = organizationUserRepository.findAll(spec, pageable);
-
-        int count = 0;
-        if (withCount){
-            count = (int)data.getTotalElements();
-        }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
-        );
+        return findList(OrganizationUserEntity.class, OrganizationUserView.class, OrganizationUserView.ATTRIBUTES, spec,
+                sort, "userOnOrganization:" + sortType.name(), view -> view.sortValues(sort), paginationType, limit, offset,
+                cursor, withCount, () -> organizationCountService.countUsersOnOrganization(countMode, spec, organizationId));
     }
 
     @Transactional(readOnly = true)
-    public ListEntityWithCount<OrganizationUserEntity> getOrganizationsOnUser(
+    public ListEntityWithCountAndCursor<OrganizationUserView> getOrganizationsOnUser(
             String userId,
             PaginationType paginationType,
             int limit,
             int offset,
             String cursor,
             OrganizationOnUserSortType sortType,
-            boolean withCount
+            boolean withCount,
+            CountMode countMode
     ) {
+        Sort sort = createSort(sortType);
+
+        if (organizationMembershipIndex.isReady() && canSortByIndex(sort)) {
+            return findOrganizationsOnUserFromIndex(userId, sort, "organizationOnUser:" + sortType.name(),
+                    paginationType, limit, offset, cursor);
+        }
+
         Specification<OrganizationUserEntity> spec = Specification.where(
-                OrganizationUserSpecifications.whereUserId(userId)
-                        .and(OrganizationUserSpecifications.fetchOrganization()));
+                OrganizationUserSpecifications.whereUserId(userId));
 
-        Sort sort = createSort(sortType);
+        return findList(OrganizationUserEntity.class, OrganizationUserView.class,
+                OrganizationUserView.ATTRIBUTES_WITH_ORGANIZATION, spec, sort, "organizationOnUser:" + sortType.name(),
+                view -> view.sortValues(sort), paginationType, limit, offset, cursor, withCount,
+                () -> organizationCountService.countOrganizationsOnUser(countMode, spec, userId));
+    }
 
-        Pageable pageable = switch (paginationType) {
-            case OFFSET -> PageRequest.of(offset / limit, limit, sort);
-            case CURSOR -> PageRequest.of(0, limit, sort); // TODO: Implement cursor pagination
-            default -> Pageable.unpaged(sort);
-        };
+    /**
+     * 条件に一致する組織を1件ずつconsumerに渡す.
+     * 結果をListに保持しないため, 件数によらずメモリ使用量は一定となる.
+     * consumerはトランザクション内で呼び出される.
+     */
+    @Transactional(readOnly = true)
+    public void stream(
+            OrganizationSortType sortType,
+            PlanFilter planFilter,
+            OwnerFilter ownerFilter,
+            UsersFilter usersFilter,
+            Consumer<OrganizationView> consumer
+    ) {
+        Specification<OrganizationEntity> spec = Specification.where(
+                OrganizationSpecifications.withPlanFilter(planFilter)
+                        .and(OrganizationSpecifications.withOwnerFilter(ownerFilter))
+                        .and(OrganizationSpecifications.withBelongUsersFilter(usersFilter)));
 
-        Page<OrganizationUserEntity> data = organizationUserRepository.findAll(spec, pageable);
+        specificationQueryExecutor.forEachProjected(OrganizationEntity.class, OrganizationView.class,
+                OrganizationView.ATTRIBUTES, spec, createSort(sortType), streamFetchSize, consumer);
+    }
 
-        int count = 0;
-        if (withCount){
-            count = (int)data.getTotalElements();
-        }
-        return new ListEntityWithCount<>(
-                data.getContent(),
-                count
-        );
+    @Transactional(readOnly = true)
+    public void streamUsersOnOrganization(
+            String organizationId,
+            UserOnOrganizationSortType sortType,
+            Consumer<OrganizationUserView> consumer
+    ) {
+        Specification<OrganizationUserEntity> spec = Specification.where(
+                OrganizationUserSpecifications.whereOrganizationId(organizationId));
+
+        specificationQueryExecutor.forEachProjected(OrganizationUserEntity.class, OrganizationUserView.class,
+                OrganizationUserView.ATTRIBUTES, spec, createSort(sortType), streamFetchSize, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamOrganizationsOnUser(
+            String userId,
+            OrganizationOnUserSortType sortType,
+            Consumer<OrganizationUserView> consumer
+    ) {
+        Specification<OrganizationUserEntity> spec = Specification.where(
+                OrganizationUserSpecifications.whereUserId(userId));
+
+        specificationQueryExecutor.forEachProjected(OrganizationUserEntity.class, OrganizationUserView.class,
+                OrganizationUserView.ATTRIBUTES_WITH_ORGANIZATION, spec, createSort(sortType), streamFetchSize, consumer);
     }
 
     @Transactional(readOnly = true)
-    public List<OrganizationEntity> getByOrganizationIds(
+    public List<OrganizationView> getByOrganizationIds(
             List<String> organizationIds,
             OrganizationSortType sortType
     ) {
+        readYourWritesTracker.requirePrimaryIfRecentlyWritten(organizationIds);
+
         Specification<OrganizationEntity> spec = Specification.where(
                 OrganizationSpecifications.whereOrganizationIds(organizationIds));
 
-        return organizationRepository.findAll(spec, createSort(sortType));
+        return specificationQueryExecutor.findProjected(OrganizationEntity.class, OrganizationView.class,
+                OrganizationView.ATTRIBUTES, spec, createSort(sortType), 0, 0);
     }
 
     @Transactional(readOnly = true)
@@ -258,6 +348,8 @@ public class OrganizationService extends BaseService {
             List<String> organizationIds,
             OrganizationWithUsersSortType sortType
     ) {
+        readYourWritesTracker.requirePrimaryIfRecentlyWritten(organizationIds);
+
         Specification<OrganizationEntity> spec = Specification.where(
                 OrganizationSpecifications.whereOrganizationIds(organizationIds)
                         .and(OrganizationSpecifications.fetchOrganizationUsers()));
@@ -296,18 +388,50 @@ public class OrganizationService extends BaseService {
         return jobId;
     }
 
+    /**
+     * ユーザーIDのみを受け取り, ユーザー追加Sagaを開始する.
+     * ユーザー数がチャンクサイズを超える場合は, チャンクごとに独立したSagaを開始する.
+     * 各チャンクは検証・追加・デフォルトチームへの追加を並行して進め, 失敗時の補償もチャンク単位で行われるため,
+     * コマンドメッセージの大きさと追加処理のトランザクションの長さはチャンクサイズで抑えられる.
+     *
+     * @return チャンクごとのジョブID(先頭が代表のジョブID)
+     */
     @Transactional
-    public String beginAddUsers(String operatorId, String organizationId, List<OrganizationUserEntity> users) {
+    public List<String> beginAddUserIds(String operatorId, String organizationId, Collection<String> userIds) {
+        List<String> distinctUserIds = userIds.stream().distinct().toList();
+        int chunkSize = addUsersChunkSize > 0 ? addUsersChunkSize : Math.max(distinctUserIds.size(), 1);
+        int chunkCount = Math.max((distinctUserIds.size() + chunkSize - 1) / chunkSize, 1);
+
+        List<String> jobIds = new ArrayList<>(chunkCount);
+        for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+            List<String> chunk = distinctUserIds.subList(
+                    Math.min(chunkIndex * chunkSize, distinctUserIds.size()),
+                    Math.min((chunkIndex + 1) * chunkSize, distinctUserIds.size()));
+            jobIds.add(beginAddUsersChunk(operatorId, organizationId, chunk, chunkIndex, chunkCount));
+        }
+
+        return jobIds;
+    }
+
+    private String beginAddUsersChunk(
+            String operatorId,
+            String organizationId,
+            List<String> userIds,
+            int chunkIndex,
+            int chunkCount
+    ) {
         AddUsersOrganizationSagaState.InitialData initialData = AddUsersOrganizationSagaState.InitialData.builder()
                 .organizationId(organizationId)
-                .users(users.stream().map(user -> AddUsersOrganizationSagaState.InitialData.User.builder()
-                        .userId(user.getUserId())
+                .users(userIds.stream().map(userId -> AddUsersOrganizationSagaState.InitialData.User.builder()
+                        .userId(userId)
                         .build())
                         .toList())
                 .build();
         AddUsersOrganizationSagaState state = new AddUsersOrganizationSagaState();
         state.setInitialData(initialData);
         state.setOperatorId(operatorId);
+        state.setChunkIndex(chunkIndex);
+        state.setChunkCount(chunkCount);
 
         String jobId = getJobId();
         state.setJobId(jobId);
@@ -316,58 +440,79 @@ public class OrganizationService extends BaseService {
             sagaInstanceFactory.create(addUsersOrganizationSaga, state);
         } catch (LocalException e) {
             // Jobで失敗イベント送信済みのため, ここでは何もしない
-            log.debug("LocalException: {}", e.getMessage());
+            log.debug("LocalException: chunk {}/{}: {}", chunkIndex + 1, chunkCount, e.getMessage());
             return jobId;
         }
 
         return jobId;
     }
 
+    @Transactional
     public OrganizationEntity createAndAddUsers(String operatorId, OrganizationEntity organization, List<OrganizationUserEntity> users) {
-        organization = organizationRepository.save(organization);
-        OrganizationEntity finalOrganization = organization;
-        users = users.stream()
-                .peek(user -> user.setOrganization(finalOrganization))
-                .toList();
-        organizationUserRepository.saveAll(users);
-        organization.setOrganizationUsers(users);
-        return organization;
+        // organization_userは外部キーを持つため, JDBCでの一括登録の前に組織をINSERTしておく
+        organization = organizationRepository.saveAndFlush(organization);
+        List<OrganizationUserEntity> addedUsers = organizationUserBulkRepository.insertIgnoringConflicts(
+                organization.getOrganizationId(), distinctUserIds(users));
+
+        // 管理下のEntityに登録済みのユーザーを設定するとカスケードで再登録されるため, 複製に設定して返す
+        organizationCache.evictAfterCommit(organization.getOrganizationId());
+        OrganizationEntity result = organization.clone();
+        addedUsers.forEach(user -> user.setOrganization(result));
+        result.setOrganizationUsers(addedUsers);
+        return result;
     }
 
+    /**
+     * ユーザーを組織に追加する. 既に所属しているユーザーが含まれる場合は, いずれも追加せずAlreadyExistOrganizationUserExceptionとする.
+     * コマンドハンドラでは重複検知のトランザクションに参加し, 例外を失敗の応答に変換して同じトランザクションでコミットするため,
+     * これらの例外ではトランザクションをロールバック専用にせず, この呼び出しで登録した行を削除してから送出する.
+     */
+    @Transactional(noRollbackFor = {OrganizationNotFoundException.class, AlreadyExistOrganizationUserException.class})
     public List<OrganizationUserEntity> addUsers(String operatorId, String organizationId, List<OrganizationUserEntity> users) {
+        if (!organizationRepository.existsById(organizationId)) {
+            throw new OrganizationNotFoundException(
+                    OrganizationNotFoundException.FindType.BY_ID,
+                    organizationId
+            );
+        }
 
-        List<OrganizationUserEntity> existUsers = organizationUserRepository.
-                findAllByOrganizationIdAndUserIds(organizationId, users.stream()
-                        .map(OrganizationUserEntity::getUserId)
-                        .toList());
-        if (!existUsers.isEmpty()) {
-            List<String> existUserIds = existUsers.stream()
+        List<String> userIds = distinctUserIds(users);
+        List<OrganizationUserEntity> addedUsers = organizationUserBulkRepository.insertIgnoringConflicts(organizationId, userIds);
+        if (addedUsers.size() < userIds.size()) {
+            Set<String> addedUserIds = addedUsers.stream()
                     .map(OrganizationUserEntity::getUserId)
+                    .collect(Collectors.toSet());
+            List<String> existUserIds = userIds.stream()
+                    .filter(userId -> !addedUserIds.contains(userId))
                     .toList();
+            organizationUserBulkRepository.deleteAllByIds(addedUsers.stream()
+                    .map(OrganizationUserEntity::getOrganizationUserId)
+                    .toList());
             throw new AlreadyExistOrganizationUserException(existUserIds);
         }
-        OrganizationEntity organization = organizationRepository.findById(organizationId)
-                .orElseThrow(() -> new OrganizationNotFoundException(
-                        OrganizationNotFoundException.FindType.BY_ID,
-                        organizationId
-                ));
-        users = users.stream()
-                .peek(user -> user.setOrganization(organization))
-                .toList();
-        return organizationUserRepository.saveAll(users);
+        organizationCache.evictAfterCommit(organizationId);
+        return addedUsers;
     }
 
-    public void undoCreate(String organizationId) {
-        OrganizationEntity organization = organizationRepository.findByIdWithUsers(organizationId)
-                .orElseThrow(() -> new OrganizationNotFoundException(
-                        OrganizationNotFoundException.FindType.BY_ID,
-                        organizationId
-                ));
-        organizationRepository.delete(organization);
+    /**
+     * 組織を削除する. 所属ユーザーは外部キーのカスケードで削除される.
+     *
+     * @return 削除された組織の数(既に削除済みの場合は0)
+     */
+    @Transactional
+    public int undoCreate(String organizationId) {
+        organizationCache.evictAfterCommit(organizationId);
+        return organizationRepository.deleteByOrganizationId(organizationId);
     }
 
-    public void undoAddUsers(List<String> organizationUserIds) {
-        organizationUserRepository.deleteAllById(organizationUserIds);
+    /**
+     * @return 削除された所属の数
+     */
+    @Transactional
+    public int undoAddUsers(List<String> organizationUserIds) {
+        List<String> organizationIds = organizationUserBulkRepository.deleteAllByIds(organizationUserIds);
+        organizationCache.evictAfterCommit(organizationIds.stream().distinct().toList());
+        return organizationIds.size();
     }
 
     public void validateOrganizationsAndOrganizationUsers(String organizationId, List<String> userIds) {
@@ -393,39 +538,272 @@ public class OrganizationService extends BaseService {
         }
     }
 
+    private static List<String> distinctUserIds(List<OrganizationUserEntity> users) {
+        return users.stream()
+                .map(OrganizationUserEntity::getUserId)
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * メンバーシップインデックスからユーザーの所属組織を取得し, ソート・ページネーションをメモリ上で行う.
+     * 所属件数は常に正確な値が得られるため, 件数取得モードによらずそのまま返す.
+     */
+    private ListEntityWithCountAndCursor<OrganizationUserView> findOrganizationsOnUserFromIndex(
+            String userId,
+            Sort sort,
+            String sortKey,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor
+    ) {
+        ListEntityWithCountAndCursor<Membership> page = pageInMemory(
+                organizationMembershipIndex.findMemberships(userId),
+                MembershipOrdering.comparator(sort),
+                (membership, values) -> MembershipOrdering.isAfter(sort, membership, values),
+                membership -> MembershipOrdering.values(sort, membership),
+                sort, sortKey, paginationType, limit, offset, cursor);
+
+        List<OrganizationUserView> data = page.getData().stream()
+                .map(Membership::toView)
+                .toList();
+        return new ListEntityWithCountAndCursor<>(data, page.getCount(), page.getNextCursor());
+    }
+
+    /**
+     * 所属ユーザー条件をメンバーシップインデックスのビットマップで評価し, ソート・ページネーションをメモリ上で行う.
+     * データベースからは該当ページの組織のみをIDで取得する.
+     * 件数は常に正確な値が得られるため, 件数取得モードによらずそのまま返す.
+     */
+    private ListEntityWithCountAndCursor<OrganizationView> findOrganizationsFromIndex(
+            Sort sort,
+            String sortKey,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor,
+            PlanFilter planFilter,
+            OwnerFilter ownerFilter,
+            UsersFilter usersFilter
+    ) {
+        ListEntityWithCountAndCursor<OrganizationView> page = pageOrganizationsFromIndex(sort, sortKey,
+                paginationType, limit, offset, cursor, planFilter, ownerFilter, usersFilter);
+
+        List<String> organizationIds = page.getData().stream()
+                .map(OrganizationView::organizationId)
+                .toList();
+        Map<String, OrganizationView> organizations = specificationQueryExecutor.findProjected(OrganizationEntity.class,
+                        OrganizationView.class, OrganizationView.ATTRIBUTES,
+                        OrganizationSpecifications.whereOrganizationIds(organizationIds), Sort.unsorted(), 0, 0).stream()
+                .collect(Collectors.toMap(OrganizationView::organizationId, Function.identity()));
+
+        // インデックスへの反映前に削除された組織は除く
+        List<OrganizationView> data = organizationIds.stream()
+                .map(organizations::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new ListEntityWithCountAndCursor<>(data, page.getCount(), page.getNextCursor());
+    }
+
+    private ListEntityWithCountAndCursor<OrganizationView> pageOrganizationsFromIndex(
+            Sort sort,
+            String sortKey,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor,
+            PlanFilter planFilter,
+            OwnerFilter ownerFilter,
+            UsersFilter usersFilter
+    ) {
+        return pageInMemory(
+                organizationMembershipIndex.findOrganizations(usersFilter, planFilter, ownerFilter),
+                OrganizationOrdering.comparator(sort),
+                (organization, values) -> OrganizationOrdering.isAfter(sort, organization, values),
+                organization -> OrganizationOrdering.values(sort, organization),
+                sort, sortKey, paginationType, limit, offset, cursor);
+    }
+
+    /**
+     * メモリ上の行をソートし, ページネーションの種類に応じて切り出す.
+     * カーソルはデータベース経由の場合と同じ形式で発行・解釈する.
+     */
+    private <E> ListEntityWithCountAndCursor<E> pageInMemory(
+            List<E> rows,
+            Comparator<E> comparator,
+            BiPredicate<E, List<String>> isAfter,
+            Function<E, List<String>> cursorValues,
+            Sort sort,
+            String sortKey,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor
+    ) {
+        List<E> sorted = new ArrayList<>(rows);
+        int count = sorted.size();
+        sorted.sort(comparator);
+
+        String nextCursor = null;
+        switch (paginationType) {
+            case CURSOR -> {
+                if (cursor != null && !cursor.isEmpty()) {
+                    List<String> values = cursorCodec.decode(cursor, sortKey, sort.toList().size());
+                    sorted = sorted.stream()
+                            .filter(row -> isAfter.test(row, values))
+                            .toList();
+                }
+                if (sorted.size() > limit) {
+                    sorted = sorted.subList(0, limit);
+                    nextCursor = cursorCodec.encode(sortKey, cursorValues.apply(sorted.get(sorted.size() - 1)));
+                }
+            }
+            case OFFSET -> {
+                // findListと同様に, offsetはlimit単位のページ先頭に揃える
+                int pageOffset = offset / limit * limit;
+                sorted = sorted.subList(
+                        Math.min(pageOffset, sorted.size()), Math.min(pageOffset + limit, sorted.size()));
+            }
+            default -> {
+            }
+        }
+        return new ListEntityWithCountAndCursor<>(sorted, count, nextCursor);
+    }
+
+    /**
+     * インデックスの行をデータベースと同じ順序で並べられるかどうか.
+     * 名前はデータベースの照合順序で並ぶため, コードポイント順でしか比較できないインデックスでは扱わない.
+     */
+    private static boolean canSortByIndex(Sort sort) {
+        return sort.stream().noneMatch(order -> NAME_SORT_PROPERTIES.contains(order.getProperty()));
+    }
+
+    /**
+     * 所属ユーザー条件をメンバーシップインデックスで評価できるかどうか.
+     * 所属ユーザー条件がない場合は, 従来どおりデータベースで絞り込む.
+     */
+    private boolean canFilterUsersByIndex(UsersFilter usersFilter) {
+        return indexUsersFilterEnabled && organizationMembershipIndex.isReady()
+                && usersFilter != null && usersFilter.isValid()
+                && usersFilter.getUserIds() != null && !usersFilter.getUserIds().isEmpty();
+    }
+
+    /**
+     * 一覧をビュー(レコード)として取得する. Entityは生成しない.
+     *
+     * @param attributes viewClassのコンストラクタ引数の順に並べた属性
+     * @param cursorValues ビューからカーソルに格納するソートキー値を取り出す関数
+     */
+    private <T, R> ListEntityWithCountAndCursor<R> findList(
+            Class<T> domainClass,
+            Class<R> viewClass,
+            List<String> attributes,
+            Specification<T> spec,
+            Sort sort,
+            String sortKey,
+            Function<R, List<String>> cursorValues,
+            PaginationType paginationType,
+            int limit,
+            int offset,
+            String cursor,
+            boolean withCount,
+            IntSupplier counter
+    ) {
+        List<R> data;
+        String nextCursor = null;
+        switch (paginationType) {
+            case CURSOR -> {
+                ListEntityWithCountAndCursor<R> page = findByCursor(domainClass, viewClass, attributes, spec, sort,
+                        sortKey, cursorValues, limit, cursor);
+                data = page.getData();
+                nextCursor = page.getNextCursor();
+            }
+            // offsetはlimit単位のページ先頭に揃える(ページ番号 = offset / limit)
+            case OFFSET -> data = specificationQueryExecutor.findProjected(
+                    domainClass, viewClass, attributes, spec, sort, offset / limit * limit, limit);
+            default -> data = specificationQueryExecutor.findProjected(
+                    domainClass, viewClass, attributes, spec, sort, 0, 0);
+        }
+
+        int count = 0;
+        if (withCount){
+            count = counter.getAsInt();
+        }
+        return new ListEntityWithCountAndCursor<>(data, count, nextCursor);
+    }
+
+    /**
+     * シークメソッドによるカーソルページネーション.
+     * limit + 1件取得して次ページの有無を判定し, 次ページがある場合は最終行からカーソルを生成する.
+     */
+    private <T, R> ListEntityWithCountAndCursor<R> findByCursor(
+            Class<T> domainClass,
+            Class<R> viewClass,
+            List<String> attributes,
+            Specification<T> spec,
+            Sort sort,
+            String sortKey,
+            Function<R, List<String>> cursorValues,
+            int limit,
+            String cursor
+    ) {
+        Specification<T> seekSpec = spec;
+        if (cursor != null && !cursor.isEmpty()) {
+            List<String> values = cursorCodec.decode(cursor, sortKey, sort.toList().size());
+            seekSpec = spec.and(KeysetSpecifications.seekAfter(sort, values));
+        }
+
+        List<R> rows = specificationQueryExecutor.findProjected(
+                domainClass, viewClass, attributes, seekSpec, sort, 0, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = cursorCodec.encode(sortKey, cursorValues.apply(rows.get(rows.size() - 1)));
+        }
+        return new ListEntityWithCountAndCursor<>(rows, 0, nextCursor);
+    }
+
+    // カーソルページネーションのため, 末尾に一意なタイブレーカー(organizationId)を含める
     private Sort createSort(OrganizationSortType sortType) {
         return switch (sortType) {
-            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
-            case NAME_ASC -> Sort.by(Sort.Order.asc("name"), Sort.Order.desc("createdAt"));
-            case NAME_DESC -> Sort.by(Sort.Order.desc("name"), Sort.Order.desc("createdAt"));
+            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("organizationId"));
+            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId"));
+            case NAME_ASC -> Sort.by(Sort.Order.asc("name"), Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId"));
+            case NAME_DESC -> Sort.by(Sort.Order.desc("name"), Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId"));
         };
     }
 
     private Sort createSort(OrganizationWithUsersSortType sortType) {
         return switch (sortType) {
-            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
-            case NAME_ASC -> Sort.by(Sort.Order.asc("name"), Sort.Order.desc("createdAt"));
-            case NAME_DESC -> Sort.by(Sort.Order.desc("name"), Sort.Order.desc("createdAt"));
+            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("organizationId"));
+            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId"));
+            case NAME_ASC -> Sort.by(Sort.Order.asc("name"), Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId"));
+            case NAME_DESC -> Sort.by(Sort.Order.desc("name"), Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId"));
         };
     }
 
+    // カーソルページネーションのため, 末尾に一意なタイブレーカー(organizationUserId)を含める
     private Sort createSort(UserOnOrganizationSortType sortType) {
         return switch (sortType) {
-            case ADD_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case ADD_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
+            case ADD_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("organizationUserId"));
+            case ADD_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("organizationUserId"));
         };
     }
 
     private Sort createSort(OrganizationOnUserSortType sortType) {
         return switch (sortType) {
-            case ADD_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"));
-            case ADD_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"));
-            case NAME_ASC -> Sort.by(Sort.Order.asc("organization.name"), Sort.Order.desc("createdAt"));
-            case NAME_DESC -> Sort.by(Sort.Order.desc("organization.name"), Sort.Order.desc("createdAt"));
-            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("organization.createdAt"), Sort.Order.desc("createdAt"));
-            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("organization.createdAt"), Sort.Order.desc("createdAt"));
+            case ADD_AT_ASC -> Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("organizationUserId"));
+            case ADD_AT_DESC -> Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("organizationUserId"));
+            case NAME_ASC -> Sort.by(Sort.Order.asc("organization.name"), Sort.Order.desc("createdAt"),
+                    Sort.Order.desc("organizationUserId"));
+            case NAME_DESC -> Sort.by(Sort.Order.desc("organization.name"), Sort.Order.desc("createdAt"),
+                    Sort.Order.desc("organizationUserId"));
+            case CREATED_AT_ASC -> Sort.by(Sort.Order.asc("organization.createdAt"), Sort.Order.desc("createdAt"),
+                    Sort.Order.desc("organizationUserId"));
+            case CREATED_AT_DESC -> Sort.by(Sort.Order.desc("organization.createdAt"), Sort.Order.desc("createdAt"),
+                    Sort.Order.desc("organizationUserId"));
         };
     }
 }
@@ -0,0 +1,123 @@
+package org.cresplanex.api.state.organizationservice.specification;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeysetSpecifications {
+
+    /**
+     * ソート順で指定行より後ろの行に絞り込む(シークメソッド).
+     * 昇順/降順が混在するソートにも対応するため, 以下のように展開する.
+     * (k1 > v1) OR (k1 = v1 AND k2 < v2) OR (k1 = v1 AND k2 = v2 AND k3 < v3) ...
+     * 先頭キーの範囲条件を重ねて付与し, インデックスの範囲スキャンを効かせる.
+     *
+     * @param sort ソート(一意となるタイブレーカーを末尾に含むこと)
+     * @param values 直前ページ最終行のソートキー値(ソート順)
+     * @return Specification
+     */
+    public static <T> Specification<T> seekAfter(Sort sort, List<String> values) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != values.size()) {
+            throw new IllegalArgumentException("Sort keys and cursor values size mismatch");
+        }
+
+        return (root, query, criteriaBuilder) -> {
+            List<Path<Comparable<Object>>> paths = new ArrayList<>();
+            List<Comparable<Object>> keys = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                Path<Comparable<Object>> path = resolvePath(root, orders.get(i).getProperty());
+                paths.add(path);
+                keys.add(convert(values.get(i), path.getJavaType()));
+            }
+
+            Predicate leading = orders.get(0).isAscending()
+                    ? criteriaBuilder.greaterThanOrEqualTo(paths.get(0), keys.get(0))
+                    : criteriaBuilder.lessThanOrEqualTo(paths.get(0), keys.get(0));
+
+            List<Predicate> disjunction = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                List<Predicate> conjunction = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    conjunction.add(criteriaBuilder.equal(paths.get(j), keys.get(j)));
+                }
+                conjunction.add(after(criteriaBuilder, orders.get(i), paths.get(i), keys.get(i)));
+                disjunction.add(criteriaBuilder.and(conjunction.toArray(new Predicate[0])));
+            }
+
+            return criteriaBuilder.and(leading, criteriaBuilder.or(disjunction.toArray(new Predicate[0])));
+        };
+    }
+
+    private static Predicate after(
+            CriteriaBuilder criteriaBuilder,
+            Sort.Order order,
+            Path<Comparable<Object>> path,
+            Comparable<Object> key
+    ) {
+        return order.isAscending()
+                ? criteriaBuilder.greaterThan(path, key)
+                : criteriaBuilder.lessThan(path, key);
+    }
+
+    /**
+     * ネストしたプロパティ(例: organization.name)のパスを解決する.
+     * 既存のJOIN/FETCH(fetchOrganizationなど)があれば再利用し, 余分なJOINを発生させない.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Path<Comparable<Object>> resolvePath(Root<T> root, String property) {
+        String[] parts = property.split("\\.");
+        From<?, ?> from = root;
+        for (int i = 0; i < parts.length - 1; i++) {
+            from = getOrCreateJoin(from, parts[i]);
+        }
+        Path<?> path = from.get(parts[parts.length - 1]);
+        return (Path<Comparable<Object>>) path;
+    }
+
+    private static From<?, ?> getOrCreateJoin(From<?, ?> from, String attribute) {
+        for (Fetch<?, ?> fetch : from.getFetches()) {
+            if (fetch.getAttribute().getName().equals(attribute) && fetch instanceof Join<?, ?> join) {
+                return join;
+            }
+        }
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return join;
+            }
+        }
+        return from.join(attribute, JoinType.INNER);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable<Object> convert(String value, Class<?> type) {
+        Comparable converted;
+        if (LocalDateTime.class.equals(type)) {
+            converted = LocalDateTime.parse(value);
+        } else if (OffsetDateTime.class.equals(type)) {
+            converted = OffsetDateTime.parse(value);
+        } else if (Instant.class.equals(type)) {
+            converted = Instant.parse(value);
+        } else if (Long.class.equals(type) || long.class.equals(type)) {
+            converted = Long.valueOf(value);
+        } else if (Integer.class.equals(type) || int.class.equals(type)) {
+            converted = Integer.valueOf(value);
+        } else {
+            converted = value;
+        }
+        return (Comparable<Object>) converted;
+    }
+}
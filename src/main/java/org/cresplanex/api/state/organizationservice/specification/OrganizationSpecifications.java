@@ -2,8 +2,11 @@ package org.cresplanex.api.state.organizationservice.specification;
 
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.extern.slf4j.Slf4j;
 import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
 import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
 import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
 import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
@@ -11,6 +14,7 @@ import org.hibernate.type.descriptor.java.StringJavaType;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -80,29 +84,59 @@ public class OrganizationSpecifications {
     }
 
     public static Specification<OrganizationEntity> withBelongUsersFilter(UsersFilter usersFilter) {
-        List<String> userIdList = new ArrayList<>();
-        if (usersFilter != null && usersFilter.isValid()) {
-            usersFilter.getUserIds().forEach(userId -> {
-                userIdList.add(new StringJavaType().wrap(userId, null));
-            });
+        if (usersFilter == null || !usersFilter.isValid()
+                || usersFilter.getUserIds() == null || usersFilter.getUserIds().isEmpty()) {
+            return (root, query, criteriaBuilder) -> criteriaBuilder.conjunction();
         }
+        return usersFilter.isAny()
+                ? belongsToAnyUser(usersFilter.getUserIds())
+                : belongsToAllUsers(usersFilter.getUserIds());
+    }
+
+    /**
+     * いずれかのユーザーが所属する組織に絞り込む.
+     * EXISTSによる準結合とし, JOINによる組織の重複(ページ内容・件数のずれ)を発生させない.
+     * EXISTS (SELECT ou.organization_id FROM organization_user ou
+     *         WHERE ou.organization_id = o.organization_id AND ou.user_id IN (:userIds))
+     */
+    public static Specification<OrganizationEntity> belongsToAnyUser(Collection<String> userIds) {
+        List<String> userIdList = distinct(userIds);
 
         return (root, query, criteriaBuilder) -> {
-            Predicate predicate = criteriaBuilder.conjunction();
-            if (usersFilter != null && usersFilter.isValid()) {
-                if (usersFilter.getUserIds() != null && !usersFilter.getUserIds().isEmpty()) {
-                    if (!usersFilter.isAny()) {
-                        // all
-                        for (String userId : userIdList) {
-                            predicate = criteriaBuilder.and(predicate, criteriaBuilder.isMember(userId, root.get("organizationUsers")));
-                        }
-                    } else {
-                        // any
-                        predicate = criteriaBuilder.and(predicate, root.get("organizationUsers").get("userId").in(userIdList));
-                    }
-                }
-            }
-            return predicate;
+            Subquery<String> subquery = query.subquery(String.class);
+            Root<OrganizationUserEntity> organizationUser = subquery.from(OrganizationUserEntity.class);
+            subquery.select(organizationUser.get("organizationId"))
+                    .where(
+                            criteriaBuilder.equal(organizationUser.get("organizationId"), root.get("organizationId")),
+                            organizationUser.get("userId").in(userIdList));
+            return criteriaBuilder.exists(subquery);
         };
     }
+
+    /**
+     * すべてのユーザーが所属する組織に絞り込む.
+     * ユーザーごとの相関サブクエリではなく, 単一の集約サブクエリで判定する.
+     * o.organization_id IN (SELECT ou.organization_id FROM organization_user ou WHERE ou.user_id IN (:userIds)
+     *                       GROUP BY ou.organization_id HAVING COUNT(DISTINCT ou.user_id) = :n)
+     */
+    public static Specification<OrganizationEntity> belongsToAllUsers(Collection<String> userIds) {
+        List<String> userIdList = distinct(userIds);
+
+        return (root, query, criteriaBuilder) -> {
+            Subquery<String> subquery = query.subquery(String.class);
+            Root<OrganizationUserEntity> organizationUser = subquery.from(OrganizationUserEntity.class);
+            subquery.select(organizationUser.get("organizationId"))
+                    .where(organizationUser.get("userId").in(userIdList))
+                    .groupBy(organizationUser.get("organizationId"))
+                    .having(criteriaBuilder.equal(
+                            criteriaBuilder.countDistinct(organizationUser.get("userId")), (long) userIdList.size()));
+            return root.get("organizationId").in(subquery);
+        };
+    }
+
+    private static List<String> distinct(Collection<String> values) {
+        List<String> list = new ArrayList<>();
+        values.stream().distinct().forEach(value -> list.add(new StringJavaType().wrap(value, null)));
+        return list;
+    }
 }
@@ -0,0 +1,30 @@
+-- Outboxを分割したテーブル(message0 ... message{N-1}). 宛先キーのハッシュで書き込み先を決め, テーブルごとにCDCのコネクタを割り当てる.
+-- テーブル数はcore.outbox.partitioning.outbox.tables(プレースホルダーoutbox_tables)に従い, 増やした場合は再実行で不足分を作成する.
+-- 各テーブルはmessageと同様にcreation_timeで日次に分割する(ensure_creation_time_partitioned).
+-- パブリケーションは親テーブル単位で作成し, 後から作成される日次パーティションの変更も親テーブルの変更としてCDCに届ける.
+-- Debeziumが自動作成したFOR ALL TABLESのパブリケーションはSET TABLEで変更できないため, 作り直す.
+DO $$
+DECLARE
+    table_name TEXT;
+    publication_name TEXT;
+BEGIN
+    FOR i IN -1 .. ${outbox_tables} - 1 LOOP
+        table_name := CASE WHEN i < 0 THEN 'message' ELSE 'message' || i END;
+        publication_name := CASE WHEN i < 0 THEN '${cdc_publication}' ELSE '${cdc_publication}_' || i END;
+
+        PERFORM ${core_schema}.ensure_creation_time_partitioned(table_name, 'message', 'id');
+
+        IF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = publication_name AND puballtables) THEN
+            EXECUTE format('DROP PUBLICATION %I', publication_name);
+        END IF;
+
+        IF EXISTS (SELECT 1 FROM pg_publication WHERE pubname = publication_name) THEN
+            EXECUTE format('ALTER PUBLICATION %I SET TABLE %I.%I', publication_name, '${core_schema}', table_name);
+            EXECUTE format('ALTER PUBLICATION %I SET (publish_via_partition_root = true)', publication_name);
+        ELSE
+            EXECUTE format('CREATE PUBLICATION %I FOR TABLE %I.%I WITH (publish_via_partition_root = true)',
+                    publication_name, '${core_schema}', table_name);
+        END IF;
+    END LOOP;
+END
+$$;
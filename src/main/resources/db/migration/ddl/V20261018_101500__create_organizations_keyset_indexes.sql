@@ -0,0 +1,3 @@
+CREATE INDEX organizations_created_at_organization_id_index ON organizations (created_at, organization_id);
+CREATE INDEX organizations_name_created_at_organization_id_index ON organizations (name, created_at DESC, organization_id DESC);
+CREATE INDEX organizations_name_desc_created_at_organization_id_index ON organizations (name DESC, created_at DESC, organization_id DESC);
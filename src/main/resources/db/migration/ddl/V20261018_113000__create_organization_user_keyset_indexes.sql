@@ -0,0 +1,6 @@
+-- GetUsersOnOrganization: organization_id = ? ORDER BY (created_at, organization_user_id)
+CREATE INDEX organization_user_organization_id_created_at_index ON organization_user (organization_id, created_at, organization_user_id);
+-- GetOrganizationsOnUser(追加日時順): user_id = ? ORDER BY (created_at, organization_user_id)
+CREATE INDEX organization_user_user_id_created_at_index ON organization_user (user_id, created_at, organization_user_id);
+-- GetOrganizationsOnUser(組織名・組織作成日時順): user_idで絞り込み, organizationsとのJOINとタイブレーカーをインデックスのみで解決
+CREATE INDEX organization_user_user_id_organization_id_index ON organization_user (user_id, organization_id, created_at, organization_user_id);
@@ -0,0 +1,103 @@
+-- Outbox(message)と受信済みメッセージ(received_messages)をcreation_time(ミリ秒)の範囲で分割し, 保持期間を過ぎた日次パーティションをDROPで削除できるようにする.
+-- 日次パーティションの作成と削除はアプリケーション(RetentionEngine)が行い, DEFAULTパーティションは作成漏れ時の退避先とする.
+-- 既存のテーブルは{table}_legacyとして, 移行時点(+時刻のずれの猶予)までの範囲のパーティションに付け替える.
+
+-- メッセージID(ApplicationIdGenerator, 上位64ビットの16進数-下位64ビットの16進数)の上位64ビットが表す発行時刻(ミリ秒).
+-- 形式が異なる場合(データベースで採番したIDなど)や, 2000年から2100年の範囲外の場合はNULL.
+-- 受信済みメッセージはこの値をcreation_timeとする(PublishTimeDuplicateMessageDetector). IDのみで決まるため, 同じメッセージは常に同じパーティションに入る.
+CREATE OR REPLACE FUNCTION ${core_schema}.message_id_time(message_id TEXT) RETURNS BIGINT AS $$
+    SELECT CASE
+        WHEN message_id ~ '^[0-9a-f]{16}-[0-9a-f]{16}$'
+            AND ('x' || substr(message_id, 1, 16))::BIT(64)::BIGINT BETWEEN 946684800000 AND 4102444800000
+        THEN ('x' || substr(message_id, 1, 16))::BIT(64)::BIGINT
+    END
+$$ LANGUAGE sql IMMUTABLE;
+
+-- legacy_creation_time: 付け替える既存の行のcreation_timeとする式(移行後の書き込みと同じ値とするため)
+CREATE OR REPLACE FUNCTION ${core_schema}.ensure_creation_time_partitioned(
+    table_name TEXT,
+    template_name TEXT,
+    key_columns TEXT,
+    legacy_creation_time TEXT DEFAULT 'creation_time'
+) RETURNS VOID AS $$
+DECLARE
+    schema_name TEXT := '${core_schema}';
+    legacy_name TEXT := table_name || '_legacy';
+    current_kind "char";
+    -- 他のサービスとの時刻のずれの猶予(発行時刻で分割する受信済みメッセージが移行時点より後の時刻を持つ場合)
+    cutoff BIGINT := (EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::BIGINT + 600000;
+    today DATE := (clock_timestamp() AT TIME ZONE 'UTC')::DATE;
+    day_start BIGINT;
+    primary_key_name TEXT;
+BEGIN
+    SELECT c.relkind INTO current_kind
+    FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+    WHERE n.nspname = schema_name AND c.relname = table_name;
+
+    IF current_kind = 'p' THEN
+        RETURN;
+    END IF;
+    IF current_kind = 'r' THEN
+        EXECUTE format('ALTER TABLE %I.%I RENAME TO %I', schema_name, table_name, legacy_name);
+        EXECUTE format('UPDATE %I.%I SET creation_time = LEAST(COALESCE(%s, creation_time, 0), %s)',
+                schema_name, legacy_name, legacy_creation_time, cutoff - 1);
+        EXECUTE format('ALTER TABLE %I.%I ALTER COLUMN creation_time SET NOT NULL', schema_name, legacy_name);
+        -- 主キーは親テーブルの主キー(元の主キー, creation_time)に置き換わるため, 付け替え前に削除する
+        SELECT conname INTO primary_key_name FROM pg_constraint
+        WHERE conrelid = format('%I.%I', schema_name, legacy_name)::REGCLASS AND contype = 'p';
+        IF primary_key_name IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE %I.%I DROP CONSTRAINT %I', schema_name, legacy_name, primary_key_name);
+        END IF;
+        template_name := legacy_name;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I.%I (LIKE %I.%I INCLUDING DEFAULTS) PARTITION BY RANGE (creation_time)',
+            schema_name, table_name, schema_name, template_name);
+    -- パーティションキーを含める必要があるため, 主キーは(元の主キー, creation_time)とする
+    EXECUTE format('ALTER TABLE %I.%I ADD PRIMARY KEY (%s, creation_time)', schema_name, table_name, key_columns);
+    EXECUTE format('CREATE TABLE %I.%I PARTITION OF %I.%I DEFAULT', schema_name, table_name || '_default', schema_name, table_name);
+    IF current_kind = 'r' THEN
+        EXECUTE format('ALTER TABLE %I.%I ATTACH PARTITION %I.%I FOR VALUES FROM (MINVALUE) TO (%s)',
+                schema_name, table_name, schema_name, legacy_name, cutoff);
+    END IF;
+
+    -- 起動直後の書き込みがDEFAULTに入らないよう, 当日から数日分を作成しておく(以降はRetentionEngineが作成する)
+    FOR d IN 0 .. 3 LOOP
+        day_start := (EXTRACT(EPOCH FROM (today + d)::TIMESTAMP) * 1000)::BIGINT;
+        EXECUTE format('CREATE TABLE %I.%I PARTITION OF %I.%I FOR VALUES FROM (%s) TO (%s)',
+                schema_name, table_name || '_p' || to_char(today + d, 'YYYYMMDD'), schema_name, table_name,
+                CASE WHEN current_kind = 'r' THEN GREATEST(day_start, cutoff) ELSE day_start END,
+                day_start + 86400000);
+    END LOOP;
+END
+$$ LANGUAGE plpgsql;
+
+SELECT ${core_schema}.ensure_creation_time_partitioned('message', 'message', 'id');
+SELECT ${core_schema}.ensure_creation_time_partitioned('received_messages', 'received_messages', 'consumer_id, message_id',
+        '${core_schema}.message_id_time(message_id)');
+
+-- 主キー(consumer_id, message_id, creation_time)はパーティションごとの一意性しか保証しない.
+-- creation_timeがメッセージIDの発行時刻(message_id_time)であれば, 同じメッセージは同じパーティション・同じ主キーとなるため, 主キーのみで重複を検知できる.
+-- それ以外(IDから発行時刻が得られない場合や, 受信時刻で書き込まれた場合)は, (consumer_id, message_id)の一意性を全パーティションで確認し,
+-- 違反時は主キー違反と同じunique_violationとする. 同じメッセージの同時挿入はアドバイザリロックで直列化する(ロックはトランザクション終了まで保持).
+CREATE OR REPLACE FUNCTION ${core_schema}.received_messages_ensure_unique() RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.creation_time = ${core_schema}.message_id_time(NEW.message_id) THEN
+        RETURN NEW;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtextextended(NEW.consumer_id || ':' || NEW.message_id, 0));
+    IF EXISTS (
+        SELECT 1 FROM ${core_schema}.received_messages
+        WHERE consumer_id = NEW.consumer_id AND message_id = NEW.message_id
+    ) THEN
+        RAISE unique_violation USING MESSAGE = format('duplicate received message: consumer_id=%s, message_id=%s',
+                NEW.consumer_id, NEW.message_id);
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER received_messages_ensure_unique
+    BEFORE INSERT ON ${core_schema}.received_messages
+    FOR EACH ROW EXECUTE FUNCTION ${core_schema}.received_messages_ensure_unique();
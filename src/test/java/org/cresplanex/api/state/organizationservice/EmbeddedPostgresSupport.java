@@ -0,0 +1,56 @@
+package org.cresplanex.api.state.organizationservice;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PostgreSQL固有のSQL(unnest, ON CONFLICT, 実行計画など)を検証するテスト用の組み込みPostgreSQL.
+ * JVMごとに1つ起動し, テストクラスごとに別のデータベースを割り当てる.
+ */
+public final class EmbeddedPostgresSupport {
+
+    private static EmbeddedPostgres postgres;
+    private static final Set<String> databases = new HashSet<>();
+
+    private EmbeddedPostgresSupport() {
+    }
+
+    /**
+     * データベースを作成し, spring.datasource.*をそのデータベースに向ける.
+     */
+    public static void register(DynamicPropertyRegistry registry, String database) {
+        String url = jdbcUrl(database);
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.sql.init.mode", () -> "always");
+    }
+
+    private static synchronized String jdbcUrl(String database) {
+        try {
+            if (postgres == null) {
+                postgres = EmbeddedPostgres.start();
+            }
+            if (databases.add(database)) {
+                try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE DATABASE " + database);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start embedded PostgreSQL", e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create database " + database, e);
+        }
+        return postgres.getJdbcUrl("postgres", database);
+    }
+}
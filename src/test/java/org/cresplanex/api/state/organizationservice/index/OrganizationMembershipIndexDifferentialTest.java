@@ -0,0 +1,205 @@
+package org.cresplanex.api.state.organizationservice.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
+import org.cresplanex.api.state.organizationservice.filter.organization.OwnerFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.PlanFilter;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.projection.OrganizationView;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationRepository;
+import org.cresplanex.api.state.organizationservice.specification.OrganizationSpecifications;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * メンバーシップインデックス(OrganizationMembershipIndex#findOrganizations)と
+ * データベース(OrganizationSpecifications#withBelongUsersFilter)が, 同じデータに対して同じ組織を返すことを検証する.
+ * インデックスは別スレッドでデータベースから構築するため, テストデータはトランザクション外でコミットする.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.sql.init.schema-locations=classpath:membership-index-schema.sql"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrganizationMembershipIndexDifferentialTest {
+
+    private static final long SEED = 20261018L;
+    private static final int ORGANIZATIONS = 60;
+    private static final int USERS = 25;
+    private static final List<String> PLANS = List.of("free", "standard", "premium", "enterprise");
+    private static final int OWNERS = 6;
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    private OrganizationMembershipIndex index;
+
+    @BeforeAll
+    void setUp() throws InterruptedException {
+        Random random = new Random(SEED);
+        List<Object[]> organizations = new ArrayList<>();
+        List<Object[]> memberships = new ArrayList<>();
+        for (int i = 0; i < ORGANIZATIONS; i++) {
+            String organizationId = organizationId(i);
+            // 作成日時を3組織ずつ同じにし, タイブレーカー(organizationId)による順序も比較する
+            organizations.add(new Object[]{organizationId, ownerId(random.nextInt(OWNERS)), "organization " + i,
+                    PLANS.get(random.nextInt(PLANS.size())), Timestamp.valueOf(BASE_TIME.plusMinutes(i / 3))});
+            for (int u = 0; u < USERS; u++) {
+                // 先頭のユーザーほど多くの組織に所属させる
+                if (random.nextInt(USERS + 10) < USERS - u + 3) {
+                    memberships.add(new Object[]{organizationId + "-" + userId(u), organizationId, userId(u),
+                            Timestamp.valueOf(BASE_TIME.plusSeconds(random.nextInt(86400)))});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO organizations (organization_id, owner_id, name, plan, created_at, created_by) "
+                + "VALUES (?, ?, ?, ?, ?, 'test')", organizations);
+        jdbcTemplate.batchUpdate("INSERT INTO organization_user (organization_user_id, organization_id, user_id, created_at, created_by) "
+                + "VALUES (?, ?, ?, ?, 'test')", memberships);
+
+        index = new OrganizationMembershipIndex(new MembershipIndexRepository(jdbcTemplate), new SimpleMeterRegistry(), true, 16);
+        index.build();
+        for (int i = 0; i < 500 && !index.isReady(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(index.isReady()).as("membership index built").isTrue();
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (index != null) {
+            index.shutdown();
+        }
+        jdbcTemplate.update("DELETE FROM organization_user");
+        jdbcTemplate.update("DELETE FROM organizations");
+    }
+
+    static Stream<Arguments> filters() {
+        List<UsersFilter> usersFilters = new ArrayList<>();
+        List<List<String>> userSets = List.of(
+                List.of(userId(0)),
+                List.of(userId(0), userId(1)),
+                List.of(userId(0), userId(1), userId(2)),
+                List.of(userId(3), userId(3)),
+                List.of(userId(0), "unknown-user"),
+                List.of("unknown-user"),
+                List.of());
+        for (List<String> userIds : userSets) {
+            usersFilters.add(new UsersFilter(true, true, userIds));
+            usersFilters.add(new UsersFilter(true, false, userIds));
+        }
+        usersFilters.add(new UsersFilter(false, false, List.of(userId(0))));
+
+        List<PlanFilter> planFilters = Arrays.asList(
+                null,
+                new PlanFilter(false, List.of("free")),
+                new PlanFilter(true, List.of("free")),
+                new PlanFilter(true, List.of("free", "premium")),
+                new PlanFilter(true, List.of("unknown-plan")));
+        List<OwnerFilter> ownerFilters = Arrays.asList(
+                null,
+                new OwnerFilter(true, List.of(ownerId(1))),
+                new OwnerFilter(true, List.of(ownerId(1), ownerId(2))));
+
+        return usersFilters.stream().flatMap(usersFilter -> planFilters.stream().flatMap(planFilter ->
+                ownerFilters.stream().map(ownerFilter -> Arguments.of(usersFilter, planFilter, ownerFilter))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("filters")
+    void findOrganizationsMatchesSpecification(UsersFilter usersFilter, PlanFilter planFilter, OwnerFilter ownerFilter) {
+        List<String> fromIndex = index.findOrganizations(usersFilter, planFilter, ownerFilter).stream()
+                .map(OrganizationView::organizationId)
+                .toList();
+        List<String> fromDatabase = organizationRepository.findAll(specification(usersFilter, planFilter, ownerFilter)).stream()
+                .map(OrganizationEntity::getOrganizationId)
+                .toList();
+
+        assertThat(fromIndex)
+                .as("users=%s, plan=%s, owner=%s", usersFilter, planFilter, ownerFilter)
+                .containsExactlyInAnyOrderElementsOf(fromDatabase);
+    }
+
+    static Stream<Arguments> sorts() {
+        List<Sort> sorts = List.of(
+                Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("organizationId")),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("organizationId")));
+        List<UsersFilter> usersFilters = List.of(
+                new UsersFilter(true, true, List.of(userId(0), userId(1))),
+                new UsersFilter(true, false, List.of(userId(0), userId(1))));
+        return sorts.stream().flatMap(sort -> usersFilters.stream().map(usersFilter -> Arguments.of(sort, usersFilter)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("sorts")
+    void orderingMatchesDatabase(Sort sort, UsersFilter usersFilter) {
+        List<String> fromIndex = index.findOrganizations(usersFilter, null, null).stream()
+                .sorted(OrganizationOrdering.comparator(sort))
+                .map(OrganizationView::organizationId)
+                .toList();
+        List<String> fromDatabase = organizationRepository.findAll(specification(usersFilter, null, null), sort).stream()
+                .map(OrganizationEntity::getOrganizationId)
+                .toList();
+
+        assertThat(fromIndex).as("sort=%s, users=%s", sort, usersFilter).containsExactlyElementsOf(fromDatabase);
+    }
+
+    @Test
+    void nameSortIsNotServedFromIndex() {
+        // 名前はデータベースの照合順序で並ぶため, インデックスでは並べ替えない
+        assertThatThrownBy(() -> OrganizationOrdering.comparator(Sort.by(Sort.Order.asc("name"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MembershipOrdering.comparator(Sort.by(Sort.Order.asc("organization.name"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // OrganizationService#getと同じ組み合わせ
+    private static Specification<OrganizationEntity> specification(
+            UsersFilter usersFilter, PlanFilter planFilter, OwnerFilter ownerFilter) {
+        return Specification.where(
+                OrganizationSpecifications.withPlanFilter(planFilter)
+                        .and(OrganizationSpecifications.withOwnerFilter(ownerFilter))
+                        .and(OrganizationSpecifications.withBelongUsersFilter(usersFilter)));
+    }
+
+    private static String organizationId(int i) {
+        return String.format("organization-%03d", i);
+    }
+
+    private static String userId(int i) {
+        return String.format("user-%02d", i);
+    }
+
+    private static String ownerId(int i) {
+        return "owner-" + i;
+    }
+}
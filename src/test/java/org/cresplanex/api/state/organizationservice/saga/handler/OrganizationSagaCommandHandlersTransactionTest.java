@@ -0,0 +1,202 @@
+package org.cresplanex.api.state.organizationservice.saga.handler;
+
+import org.cresplanex.api.state.common.saga.command.organization.AddUsersOrganizationCommand;
+import org.cresplanex.api.state.organizationservice.EmbeddedPostgresSupport;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationBatchLoader;
+import org.cresplanex.api.state.organizationservice.cache.OrganizationCache;
+import org.cresplanex.api.state.organizationservice.datasource.ReadYourWritesTracker;
+import org.cresplanex.api.state.organizationservice.index.OrganizationMembershipIndex;
+import org.cresplanex.api.state.organizationservice.messaging.PublishTimeDuplicateMessageDetector;
+import org.cresplanex.api.state.organizationservice.pagination.CursorCodec;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationUserBulkRepository;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationWithUsersQueryRepository;
+import org.cresplanex.api.state.organizationservice.repository.SpecificationQueryExecutor;
+import org.cresplanex.api.state.organizationservice.saga.model.organization.AddUsersOrganizationSaga;
+import org.cresplanex.api.state.organizationservice.saga.model.organization.CreateOrganizationSaga;
+import org.cresplanex.api.state.organizationservice.service.OrganizationCountService;
+import org.cresplanex.api.state.organizationservice.service.OrganizationService;
+import org.cresplanex.core.commands.consumer.CommandMessage;
+import org.cresplanex.core.common.id.ApplicationIdGenerator;
+import org.cresplanex.core.common.id.IdGenerator;
+import org.cresplanex.core.common.jdbc.CoreSchema;
+import org.cresplanex.core.messaging.common.Message;
+import org.cresplanex.core.messaging.consumer.SubscriberIdAndMessage;
+import org.cresplanex.core.saga.orchestration.SagaInstanceFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * コマンドハンドラが重複検知(PublishTimeDuplicateMessageDetector)のトランザクション内で失敗の応答を返した場合に,
+ * 受信の記録と応答がコミットされ, 追加しようとしたユーザーは登録されないことを検証する.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.sql.init.schema-locations=classpath:membership-index-schema.sql,classpath:received-messages-schema.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({
+        OrganizationService.class,
+        OrganizationUserBulkRepository.class,
+        OrganizationSagaCommandHandlers.class,
+        OrganizationSagaCommandHandlersTransactionTest.Config.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrganizationSagaCommandHandlersTransactionTest {
+
+    private static final String ORGANIZATION_ID = "organization-1";
+    private static final String SUBSCRIBER_ID = "organization-service-saga";
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "saga_command_handlers_test");
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        AuditorAware<String> auditorAware() {
+            return () -> Optional.of("test");
+        }
+
+        @Bean
+        IdGenerator idGenerator() {
+            return new ApplicationIdGenerator();
+        }
+    }
+
+    @MockBean
+    private OrganizationWithUsersQueryRepository organizationWithUsersQueryRepository;
+    @MockBean
+    private SagaInstanceFactory sagaInstanceFactory;
+    @MockBean
+    private CursorCodec cursorCodec;
+    @MockBean
+    private SpecificationQueryExecutor specificationQueryExecutor;
+    @MockBean
+    private OrganizationCountService organizationCountService;
+    @MockBean
+    private OrganizationCache organizationCache;
+    @MockBean
+    private OrganizationBatchLoader organizationBatchLoader;
+    @MockBean
+    private ReadYourWritesTracker readYourWritesTracker;
+    @MockBean
+    private OrganizationMembershipIndex organizationMembershipIndex;
+    @MockBean
+    private CreateOrganizationSaga createOrganizationSaga;
+    @MockBean
+    private AddUsersOrganizationSaga addUsersOrganizationSaga;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrganizationSagaCommandHandlers organizationSagaCommandHandlers;
+
+    private PublishTimeDuplicateMessageDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM command_replies");
+        jdbcTemplate.update("DELETE FROM core.received_messages");
+        jdbcTemplate.update("DELETE FROM organization_user");
+        jdbcTemplate.update("DELETE FROM organizations");
+        jdbcTemplate.update("INSERT INTO organizations (organization_id, owner_id, name, plan, created_at, created_by) "
+                + "VALUES (?, 'owner-1', 'organization', 'free', now(), 'test')", ORGANIZATION_ID);
+        jdbcTemplate.update("INSERT INTO organization_user (organization_user_id, organization_id, user_id, created_at, created_by) "
+                + "VALUES ('organization-user-1', ?, 'user-1', now(), 'test')", ORGANIZATION_ID);
+
+        CoreSchema coreSchema = mock(CoreSchema.class);
+        when(coreSchema.qualifyTable(anyString())).thenAnswer(invocation -> "core." + invocation.getArgument(0));
+        detector = new PublishTimeDuplicateMessageDetector(jdbcTemplate, transactionTemplate, coreSchema,
+                "(EXTRACT(EPOCH FROM now()) * 1000)::BIGINT");
+    }
+
+    @Test
+    void failureReplyForAlreadyAddedUserCommitsWithDuplicateDetection() {
+        String messageId = String.format("%016x-%016x", System.currentTimeMillis(), 1L);
+
+        assertThatCode(() -> handle(messageId, "user-2", "user-1")).doesNotThrowAnyException();
+
+        assertThat(jdbcTemplate.queryForList("SELECT payload FROM command_replies WHERE message_id = ?", String.class, messageId))
+                .singleElement()
+                .asString()
+                .contains("Users already added");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM core.received_messages WHERE message_id = ?",
+                Integer.class, messageId)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM organization_user WHERE organization_id = ?",
+                String.class, ORGANIZATION_ID)).containsExactly("user-1");
+    }
+
+    @Test
+    void redeliveredCommandIsDiscardedAfterFailureReply() {
+        String messageId = String.format("%016x-%016x", System.currentTimeMillis(), 2L);
+
+        handle(messageId, "user-2", "user-1");
+        handle(messageId, "user-2", "user-1");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM command_replies WHERE message_id = ?",
+                Integer.class, messageId)).isEqualTo(1);
+    }
+
+    @Test
+    void successReplyCommitsAddedUsers() {
+        String messageId = String.format("%016x-%016x", System.currentTimeMillis(), 3L);
+
+        handle(messageId, "user-2", "user-3");
+
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM organization_user WHERE organization_id = ?",
+                String.class, ORGANIZATION_ID)).containsExactlyInAnyOrder("user-1", "user-2", "user-3");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM command_replies WHERE message_id = ?",
+                Integer.class, messageId)).isEqualTo(1);
+    }
+
+    // CommandDispatcherと同様に, 重複検知のトランザクション内でハンドラを呼び出し, 応答を同じトランザクションで書き込む
+    @SuppressWarnings("unchecked")
+    private void handle(String messageId, String... userIds) {
+        AddUsersOrganizationCommand.Exec command = new AddUsersOrganizationCommand.Exec(
+                "operator-1",
+                ORGANIZATION_ID,
+                List.of(userIds).stream().map(AddUsersOrganizationCommand.Exec.User::new).toList());
+        CommandMessage<AddUsersOrganizationCommand.Exec> commandMessage = mock(CommandMessage.class);
+        when(commandMessage.getCommand()).thenReturn(command);
+        Message message = mock(Message.class);
+        when(message.getId()).thenReturn(messageId);
+        SubscriberIdAndMessage subscriberIdAndMessage = mock(SubscriberIdAndMessage.class);
+        when(subscriberIdAndMessage.getSubscriberId()).thenReturn(SUBSCRIBER_ID);
+        when(subscriberIdAndMessage.getMessage()).thenReturn(message);
+
+        detector.doWithMessage(subscriberIdAndMessage, () -> {
+            Message reply = organizationSagaCommandHandlers.handleAddUsersOrganizationCommand(commandMessage);
+            jdbcTemplate.update("INSERT INTO command_replies (message_id, payload) VALUES (?, ?)", messageId, reply.getPayload());
+        });
+    }
+}
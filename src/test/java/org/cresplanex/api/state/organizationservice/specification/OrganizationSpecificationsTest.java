@@ -0,0 +1,204 @@
+package org.cresplanex.api.state.organizationservice.specification;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import org.cresplanex.api.state.organizationservice.EmbeddedPostgresSupport;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationEntity;
+import org.cresplanex.api.state.organizationservice.entity.OrganizationUserEntity;
+import org.cresplanex.api.state.organizationservice.filter.organization.UsersFilter;
+import org.cresplanex.api.state.organizationservice.repository.OrganizationRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * メンバーシップによる絞り込み(OrganizationSpecifications#withBelongUsersFilter)を検証する.
+ * - 以前のJOINによる絞り込みと同じ組織を, 重複なく返すこと
+ * - 発行されるSQL(EXISTS / GROUP BY HAVING)の実行計画が, user_id, organization_idを含むインデックスを使用すること
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "org.cresplanex.api.state.organizationservice.specification.RecordingStatementInspector",
+        "spring.sql.init.schema-locations=classpath:membership-index-schema.sql,classpath:membership-filter-indexes.sql,"
+                + "classpath:db/migration/ddl/V20261018_101500__create_organizations_keyset_indexes.sql,"
+                + "classpath:db/migration/ddl/V20261018_113000__create_organization_user_keyset_indexes.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrganizationSpecificationsTest {
+
+    private static final int ORGANIZATIONS = 2000;
+    private static final int USERS = 1000;
+    private static final int MEMBERSHIPS_PER_ORGANIZATION = 8;
+    private static final String MEMBERSHIP_INDEX = "organization_user_user_id_organization_id_index";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "organization_specifications_test");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrganizationRepository organizationRepository;
+
+    @BeforeAll
+    void setUp() {
+        List<Object[]> organizations = new ArrayList<>();
+        List<Object[]> memberships = new ArrayList<>();
+        for (int i = 0; i < ORGANIZATIONS; i++) {
+            String organizationId = String.format("organization-%04d", i);
+            organizations.add(new Object[]{organizationId, "owner-" + (i % 6), "organization " + i,
+                    Timestamp.valueOf(BASE_TIME.plusMinutes(i))});
+            // 各ユーザーは約16組織に所属し, 先頭の3ユーザーは一定間隔の組織にも所属する(組み合わせの共通部分を作る)
+            Set<Integer> users = new LinkedHashSet<>();
+            for (int k = 0; k < MEMBERSHIPS_PER_ORGANIZATION; k++) {
+                users.add((i * 7 + k * 131) % USERS);
+            }
+            if (i % 10 == 0) {
+                users.add(0);
+            }
+            if (i % 15 == 0) {
+                users.add(1);
+            }
+            if (i % 6 == 0) {
+                users.add(2);
+            }
+            for (int user : users) {
+                memberships.add(new Object[]{organizationId + "-" + userId(user), organizationId, userId(user),
+                        Timestamp.valueOf(BASE_TIME.plusMinutes(i))});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO organizations (organization_id, owner_id, name, plan, created_at, created_by) "
+                + "VALUES (?, ?, ?, 'free', ?, 'test')", organizations);
+        jdbcTemplate.batchUpdate("INSERT INTO organization_user (organization_user_id, organization_id, user_id, created_at, created_by) "
+                + "VALUES (?, ?, ?, ?, 'test')", memberships);
+        // 実行計画が本番と同じ統計・可視性マップ(Index Only Scan)に基づくようにする
+        jdbcTemplate.execute("VACUUM ANALYZE organizations");
+        jdbcTemplate.execute("VACUUM ANALYZE organization_user");
+    }
+
+    @AfterAll
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM organization_user");
+        jdbcTemplate.update("DELETE FROM organizations");
+    }
+
+    static Stream<Arguments> usersFilters() {
+        List<List<String>> userSets = List.of(
+                List.of(userId(0)),
+                List.of(userId(0), userId(1)),
+                List.of(userId(0), userId(1), userId(2)),
+                List.of(userId(3), userId(3)),
+                List.of(userId(500), userId(501)),
+                List.of(userId(0), "unknown-user"),
+                List.of("unknown-user"));
+        return userSets.stream().flatMap(userIds -> Stream.of(
+                Arguments.of(new UsersFilter(true, true, userIds)),
+                Arguments.of(new UsersFilter(true, false, userIds))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("usersFilters")
+    void matchesJoinBasedFilter(UsersFilter usersFilter) {
+        List<String> actual = organizationIds(OrganizationSpecifications.withBelongUsersFilter(usersFilter));
+        List<String> joined = organizationIds(joinBasedFilter(usersFilter));
+
+        assertThat(actual).as("users=%s", usersFilter).doesNotHaveDuplicates();
+        assertThat(actual).as("users=%s", usersFilter).containsExactlyInAnyOrderElementsOf(Set.copyOf(joined));
+    }
+
+    @Test
+    void intersectionOfUsersIsNotEmpty() {
+        // 共通部分が空のままでは「すべて」の比較が意味をなさないため, データの前提を確認する
+        assertThat(organizationIds(OrganizationSpecifications.withBelongUsersFilter(
+                new UsersFilter(true, false, List.of(userId(0), userId(1), userId(2)))))).isNotEmpty();
+    }
+
+    @Test
+    void anyUsersPlanUsesMembershipIndex() {
+        List<String> userIds = List.of(userId(500), userId(501));
+
+        String plan = explain(OrganizationSpecifications.withBelongUsersFilter(new UsersFilter(true, true, userIds)),
+                userIds.toArray());
+
+        assertThat(plan).contains(MEMBERSHIP_INDEX).doesNotContain("Seq Scan on organization_user");
+    }
+
+    @Test
+    void allUsersPlanUsesMembershipIndex() {
+        List<String> userIds = List.of(userId(500), userId(501));
+
+        String plan = explain(OrganizationSpecifications.withBelongUsersFilter(new UsersFilter(true, false, userIds)),
+                userIds.get(0), userIds.get(1), (long) userIds.size());
+
+        assertThat(plan).contains(MEMBERSHIP_INDEX).doesNotContain("Seq Scan on organization_user");
+    }
+
+    private List<String> organizationIds(Specification<OrganizationEntity> specification) {
+        return organizationRepository.findAll(specification).stream()
+                .map(OrganizationEntity::getOrganizationId)
+                .toList();
+    }
+
+    /**
+     * 仕様を実行して発行されたSQLを, 同じパラメータ(出現順)でEXPLAINする.
+     */
+    private String explain(Specification<OrganizationEntity> specification, Object... parameters) {
+        organizationIds(specification);
+        String sql = RecordingStatementInspector.lastSql();
+        assertThat(sql.chars().filter(c -> c == '?').count()).as(sql).isEqualTo(parameters.length);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+    }
+
+    /**
+     * 以前のJOINによる絞り込み(いずれか: organization_userとのJOIN, すべて: ユーザーごとのJOIN).
+     * いずれかの場合, 複数のユーザーが所属する組織は重複して返る.
+     */
+    private static Specification<OrganizationEntity> joinBasedFilter(UsersFilter usersFilter) {
+        List<String> userIds = usersFilter.getUserIds();
+        return (root, query, criteriaBuilder) -> {
+            if (usersFilter.isAny()) {
+                return root.join("organizationUsers").get("userId").in(userIds);
+            }
+            Predicate predicate = criteriaBuilder.conjunction();
+            for (String userId : userIds) {
+                Join<OrganizationEntity, OrganizationUserEntity> organizationUser = root.join("organizationUsers");
+                predicate = criteriaBuilder.and(predicate, criteriaBuilder.equal(organizationUser.get("userId"), userId));
+            }
+            return predicate;
+        };
+    }
+
+    private static String userId(int i) {
+        return String.format("user-%04d", i);
+    }
+}
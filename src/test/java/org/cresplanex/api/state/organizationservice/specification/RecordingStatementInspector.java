@@ -0,0 +1,21 @@
+package org.cresplanex.api.state.organizationservice.specification;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernateが最後に発行したSQLを記録する(実行計画の検証用).
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<String> lastSql = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        lastSql.set(sql);
+        return sql;
+    }
+
+    public static String lastSql() {
+        return lastSql.get();
+    }
+}
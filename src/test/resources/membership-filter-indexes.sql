@@ -0,0 +1,4 @@
+-- メンバーシップによる絞り込みの実行計画テスト用(db/migration/ddl/V20241117_085539__create_organization_user_table.sqlのインデックス)
+-- キーセット用のインデックスはdb/migration/ddlのマイグレーションをそのまま読み込む
+CREATE INDEX organization_user_organization_id_index ON organization_user (organization_id);
+CREATE INDEX organization_user_user_id_index ON organization_user (user_id);
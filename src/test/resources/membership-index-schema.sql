@@ -0,0 +1,28 @@
+-- メンバーシップインデックスの差分テスト用(db/migration/ddlのorganizations, organization_userと同じ定義)
+CREATE TABLE organizations (
+        organization_id VARCHAR(100) PRIMARY KEY,
+        owner_id VARCHAR(100),
+        version INTEGER DEFAULT 0 NOT NULL,
+        name VARCHAR(255) NOT NULL,
+        plan VARCHAR(50) NOT NULL,
+        site_url TEXT,
+        created_at TIMESTAMP NOT NULL,
+        created_by varchar(50) NOT NULL,
+        updated_at TIMESTAMP DEFAULT NULL,
+        updated_by varchar(50) DEFAULT NULL
+);
+
+CREATE TABLE organization_user (
+        organization_user_id VARCHAR(100) PRIMARY KEY,
+        organization_id VARCHAR(100) NOT NULL,
+        user_id VARCHAR(100) NOT NULL,
+        version INTEGER DEFAULT 0 NOT NULL,
+        created_at TIMESTAMP NOT NULL,
+        created_by varchar(50) NOT NULL,
+        updated_at TIMESTAMP DEFAULT NULL,
+        updated_by varchar(50) DEFAULT NULL
+);
+
+CREATE UNIQUE INDEX organization_user_organization_id_user_id_index ON organization_user (organization_id, user_id);
+
+ALTER TABLE organization_user ADD CONSTRAINT organization_user_organization_id_fk FOREIGN KEY (organization_id) REFERENCES organizations (organization_id) ON DELETE CASCADE;
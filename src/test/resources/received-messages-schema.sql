@@ -0,0 +1,24 @@
+-- 重複検知(PublishTimeDuplicateMessageDetector)のテスト用(db/migration/ddlのreceived_messages, message_id_timeと同じ定義)
+CREATE SCHEMA core;
+
+CREATE TABLE core.received_messages (
+        consumer_id VARCHAR(1000) NOT NULL,
+        message_id VARCHAR(1000) NOT NULL,
+        creation_time BIGINT NOT NULL,
+        published SMALLINT DEFAULT 0,
+        PRIMARY KEY (consumer_id, message_id, creation_time)
+);
+
+CREATE FUNCTION core.message_id_time(message_id TEXT) RETURNS BIGINT AS '
+    SELECT CASE
+        WHEN message_id ~ ''^[0-9a-f]{16}-[0-9a-f]{16}$''
+            AND (''x'' || substr(message_id, 1, 16))::BIT(64)::BIGINT BETWEEN 946684800000 AND 4102444800000
+        THEN (''x'' || substr(message_id, 1, 16))::BIT(64)::BIGINT
+    END
+' LANGUAGE sql IMMUTABLE;
+
+-- ハンドラの応答(Outboxの代わり)
+CREATE TABLE command_replies (
+        message_id VARCHAR(1000) NOT NULL,
+        payload TEXT NOT NULL
+);